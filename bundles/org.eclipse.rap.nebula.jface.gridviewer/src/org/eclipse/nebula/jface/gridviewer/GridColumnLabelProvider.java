@@ -12,9 +12,16 @@
 
 package org.eclipse.nebula.jface.gridviewer;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.ViewerCell;
 import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Image;
 
 /**
  * A label provider that provides hooks for extra functionality in the {@link Grid}.  This is currently
@@ -23,9 +30,100 @@ import org.eclipse.nebula.widgets.grid.Grid;
  * <b> Only one from all {@link GridColumnLabelProvider} in a viewer should
  * return a none <code>null</code></b>
  * </p>
+ * <p>
+ * The labels computed for an element can optionally be cached, see
+ * {@link #setLabelCacheSize(int)}.
+ * </p>
  */
 public class GridColumnLabelProvider extends ColumnLabelProvider {
 
+	private int labelCacheSize;
+
+	/** Maps element identities to their cached labels in access order. */
+	private Map labelCache;
+
+	/**
+	 * Sets the maximum number of elements whose labels are cached by this
+	 * label provider. A cached label is reused as long as the version of its
+	 * element, as returned by {@link #getLabelVersion(Object)}, does not
+	 * change. If the cache is full, the labels of the least recently updated
+	 * elements are discarded. When a cell is updated, attributes that did not
+	 * change are not set again.
+	 * <p>
+	 * The cache is disabled by default.
+	 * </p>
+	 *
+	 * @param size
+	 *            the maximum number of cached elements, or 0 to disable the
+	 *            cache
+	 */
+	public void setLabelCacheSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Cache size must not be negative."); //$NON-NLS-1$
+		}
+		labelCacheSize = size;
+		if (size == 0) {
+			labelCache = null;
+		} else if (labelCache == null) {
+			labelCache = new LinkedHashMap(16, 0.75f, true) {
+				protected boolean removeEldestEntry(Map.Entry eldest) {
+					return size() > labelCacheSize;
+				}
+			};
+		} else {
+			Iterator iterator = labelCache.keySet().iterator();
+			while (labelCache.size() > size) {
+				iterator.next();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Returns the maximum number of elements whose labels are cached.
+	 *
+	 * @return the cache size, 0 if the cache is disabled
+	 */
+	public int getLabelCacheSize() {
+		return labelCacheSize;
+	}
+
+	/**
+	 * Discards the cached labels of all elements.
+	 */
+	public void clearLabelCache() {
+		if (labelCache != null) {
+			labelCache.clear();
+		}
+	}
+
+	/**
+	 * Discards the cached labels of the given element.
+	 *
+	 * @param element
+	 *            the model element
+	 */
+	public void invalidateLabel(Object element) {
+		if (labelCache != null) {
+			labelCache.remove(new IdentityKey(element));
+		}
+	}
+
+	/**
+	 * Returns the version of the given element. Cached labels are recomputed
+	 * when the version of their element changes. The default implementation
+	 * returns <code>null</code>, which means that cached labels are only
+	 * recomputed after they have been invalidated.
+	 *
+	 * @param element
+	 *            the model element
+	 * @return the version of the element, may be <code>null</code>
+	 * @see #invalidateLabel(Object)
+	 */
+	protected Object getLabelVersion(Object element) {
+		return null;
+	}
+
 	/**
 	 * Returns the row header text for this element.
 	 *
@@ -68,7 +166,11 @@ public class GridColumnLabelProvider extends ColumnLabelProvider {
 	 */
 	@Override
   public void update(ViewerCell cell) {
-		super.update(cell);
+		if (labelCache == null) {
+			super.update(cell);
+		} else {
+			updateCached(cell);
+		}
 
 // RAP [if] Row/column span and row headers are not supported
 //		Object element = cell.getElement();
@@ -87,4 +189,78 @@ public class GridColumnLabelProvider extends ColumnLabelProvider {
 // ENDRAP
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+  public void dispose() {
+		clearLabelCache();
+		super.dispose();
+	}
+
+	private void updateCached(ViewerCell cell) {
+		Object element = cell.getElement();
+		Object version = getLabelVersion(element);
+		IdentityKey key = new IdentityKey(element);
+		CachedLabel label = (CachedLabel) labelCache.get(key);
+		if (label == null || !equals(label.version, version)) {
+			label = new CachedLabel(element, version);
+			labelCache.put(key, label);
+		}
+		if (!label.text.equals(cell.getText())) {
+			cell.setText(label.text);
+		}
+		if (label.image != cell.getImage()) {
+			cell.setImage(label.image);
+		}
+		if (!equals(label.background, cell.getBackground())) {
+			cell.setBackground(label.background);
+		}
+		if (!equals(label.foreground, cell.getForeground())) {
+			cell.setForeground(label.foreground);
+		}
+		if (!equals(label.font, cell.getFont())) {
+			cell.setFont(label.font);
+		}
+	}
+
+	private static boolean equals(Object object1, Object object2) {
+		return object1 == null ? object2 == null : object1.equals(object2);
+	}
+
+	private static final class IdentityKey {
+		private final Object element;
+
+		IdentityKey(Object element) {
+			this.element = element;
+		}
+
+		public int hashCode() {
+			return System.identityHashCode(element);
+		}
+
+		public boolean equals(Object object) {
+			return object instanceof IdentityKey
+					&& ((IdentityKey) object).element == element;
+		}
+	}
+
+	private final class CachedLabel {
+		final Object version;
+		final String text;
+		final Image image;
+		final Color background;
+		final Color foreground;
+		final Font font;
+
+		CachedLabel(Object element, Object version) {
+			this.version = version;
+			String elementText = getText(element);
+			text = elementText == null ? "" : elementText; //$NON-NLS-1$
+			image = getImage(element);
+			background = getBackground(element);
+			foreground = getForeground(element);
+			font = getFont(element);
+		}
+	}
 }
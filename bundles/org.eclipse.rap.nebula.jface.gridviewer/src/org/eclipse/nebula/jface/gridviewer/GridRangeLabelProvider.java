@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.nebula.jface.gridviewer;
+
+import org.eclipse.jface.viewers.ViewerCell;
+import org.eclipse.nebula.widgets.grid.Grid;
+
+/**
+ * A label provider that computes the texts of a column for a range of
+ * elements at once.
+ * <p>
+ * When a {@link GridTableViewer} refreshes its rows, the texts of columns with
+ * a range label provider are collected in one block per column and applied to
+ * the {@link Grid} with a single call to
+ * {@link Grid#setTexts(int, int, String[])}. Images, colors and fonts are
+ * still updated per cell. In all other cases, for example when a single
+ * element is updated, the texts are computed by {@link #getText(Object)}.
+ * </p>
+ */
+public abstract class GridRangeLabelProvider extends GridColumnLabelProvider {
+	private boolean rangeUpdate;
+
+	/**
+	 * Computes the texts of the given elements. The text of
+	 * <code>elements[i]</code> is stored in <code>texts[i]</code>.
+	 *
+	 * @param elements
+	 *            the model elements
+	 * @param texts
+	 *            the array to fill, of the same length as
+	 *            <code>elements</code>
+	 */
+	public abstract void getTexts(Object[] elements, String[] texts);
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+  public String getText(Object element) {
+		String[] texts = new String[1];
+		getTexts(new Object[] { element }, texts);
+		return texts[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+  public void update(ViewerCell cell) {
+		if (rangeUpdate) {
+			Object element = cell.getElement();
+			cell.setImage(getImage(element));
+			cell.setBackground(getBackground(element));
+			cell.setForeground(getForeground(element));
+			cell.setFont(getFont(element));
+		} else {
+			super.update(cell);
+		}
+	}
+
+	void setRangeUpdate(boolean rangeUpdate) {
+		this.rangeUpdate = rangeUpdate;
+	}
+}
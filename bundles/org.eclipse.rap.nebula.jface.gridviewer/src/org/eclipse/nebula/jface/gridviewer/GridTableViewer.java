@@ -12,18 +12,33 @@
 
 package org.eclipse.nebula.jface.gridviewer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.jface.viewers.AbstractTableViewer;
 import org.eclipse.jface.viewers.CellLabelProvider;
 import org.eclipse.jface.viewers.ColumnViewerEditor;
 import org.eclipse.jface.viewers.ColumnViewerEditorActivationEvent;
 import org.eclipse.jface.viewers.ColumnViewerEditorActivationStrategy;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.ILazyContentProvider;
 import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.ViewerCell;
+import org.eclipse.jface.viewers.ViewerColumn;
+import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.viewers.ViewerRow;
+import org.eclipse.nebula.jface.gridviewer.internal.ElementKey;
 import org.eclipse.nebula.jface.gridviewer.internal.SelectionWithFocusRow;
 import org.eclipse.nebula.widgets.grid.Grid;
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
@@ -52,6 +67,23 @@ public class GridTableViewer extends AbstractTableViewer {
 
 	private CellLabelProvider rowHeaderLabelProvider;
 
+	/**
+	 * Maps element keys to their grid item, or to an array of grid items if
+	 * an element is shown in more than one row.
+	 */
+	private Map elementIndex = new HashMap();
+
+	private GridViewerInputJob inputJob;
+
+	/**
+	 * The items updated during a refresh whose texts are computed by
+	 * {@link GridRangeLabelProvider}s after the refresh, or <code>null</code>.
+	 */
+	private List rangeUpdateItems;
+
+	/** Whether the rows are refreshed because the sort order has changed. */
+	private boolean reordering;
+
 	/**
 	 * If true, this grid viewer will ensure that the grid's rows / GridItems
 	 * are always sized to their preferred height.
@@ -133,19 +165,33 @@ public class GridTableViewer extends AbstractTableViewer {
 	/** {@inheritDoc} */
 	@Override
   protected void doClear(int index) {
-		// TODO Fix when grid supports virtual
+		grid.clear(index, false);
 	}
 
-	/** {@inheritDoc} */
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Only the items that were resolved are cleared, the others are still
+	 * empty and are not touched.
+	 * </p>
+	 */
 	@Override
   protected void doClearAll() {
-		// TODO Fix when grid supports virtual
+		grid.getAdapter(IGridAdapter.class).clearResolvedItems();
 	}
 
-	/** {@inheritDoc} */
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * For grids created with <code>SWT.VIRTUAL</code> the items are created
+	 * empty. Their elements are requested from the content provider (through
+	 * <code>ILazyContentProvider.updateElement</code> for lazy content
+	 * providers) once the grid shows them.
+	 * </p>
+	 */
 	@Override
   protected void doSetItemCount(int count) {
-		// TODO Once grid supports virtual
+		grid.setItemCount(count);
 	}
 
 	/** {@inheritDoc} */
@@ -328,11 +374,127 @@ public class GridTableViewer extends AbstractTableViewer {
 	@Override
   protected void doUpdateItem(Widget widget, Object element, boolean fullMap) {
 		super.doUpdateItem(widget, element, fullMap);
+		if (rangeUpdateItems != null && !widget.isDisposed()) {
+			rangeUpdateItems.add(widget);
+		}
 		updateRowHeader(widget);
 		if (autoPreferredHeight && !widget.isDisposed())
 			((GridItem) widget).pack();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The existing rows are reassigned to the elements in their new order.
+	 * Only the rows whose element has changed are updated.
+	 * </p>
+	 */
+	@Override
+  public void setComparator(ViewerComparator comparator) {
+		reordering = true;
+		try {
+			super.setComparator(comparator);
+		} finally {
+			reordering = false;
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected void internalRefresh(Object element, boolean updateLabels) {
+		boolean update = updateLabels && !reordering;
+		GridRangeLabelProvider[] providers = getRangeLabelProviders();
+		if (providers == null || rangeUpdateItems != null) {
+			super.internalRefresh(element, update);
+		} else {
+			List items = new ArrayList();
+			rangeUpdateItems = items;
+			setRangeUpdate(providers, true);
+			try {
+				super.internalRefresh(element, update);
+			} finally {
+				setRangeUpdate(providers, false);
+				rangeUpdateItems = null;
+			}
+			updateRangeTexts(providers, items);
+		}
+	}
+
+	private GridRangeLabelProvider[] getRangeLabelProviders() {
+		GridRangeLabelProvider[] result = null;
+		int count = grid.getColumnCount();
+		for (int i = 0; i < count; i++) {
+			Object column = grid.getColumn(i).getData(
+					ViewerColumn.COLUMN_VIEWER_KEY);
+			if (column instanceof GridViewerColumn) {
+				GridRangeLabelProvider provider = ((GridViewerColumn) column)
+						.getRangeLabelProvider();
+				if (provider != null) {
+					if (result == null) {
+						result = new GridRangeLabelProvider[count];
+					}
+					result[i] = provider;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void setRangeUpdate(GridRangeLabelProvider[] providers,
+			boolean rangeUpdate) {
+		for (int i = 0; i < providers.length; i++) {
+			if (providers[i] != null) {
+				providers[i].setRangeUpdate(rangeUpdate);
+			}
+		}
+	}
+
+	/**
+	 * Applies the texts of the range label providers to the given items. Runs
+	 * of consecutive items are written to the grid in one block per column.
+	 */
+	private void updateRangeTexts(GridRangeLabelProvider[] providers,
+			List items) {
+		List runItems = new ArrayList();
+		int runStart = -1;
+		for (int i = 0; i < items.size(); i++) {
+			GridItem item = (GridItem) items.get(i);
+			if (!item.isDisposed() && item.getData() != null) {
+				int index = grid.indexOf(item);
+				if (index != runStart + runItems.size()) {
+					applyRangeTexts(providers, runStart, runItems);
+					runItems.clear();
+					runStart = index;
+				}
+				runItems.add(item);
+			}
+		}
+		applyRangeTexts(providers, runStart, runItems);
+	}
+
+	private void applyRangeTexts(GridRangeLabelProvider[] providers,
+			int start, List runItems) {
+		int count = runItems.size();
+		if (count > 0) {
+			Object[] elements = new Object[count];
+			for (int i = 0; i < count; i++) {
+				elements[i] = ((GridItem) runItems.get(i)).getData();
+			}
+			for (int column = 0; column < providers.length; column++) {
+				if (providers[column] != null) {
+					String[] texts = new String[count];
+					providers[column].getTexts(elements, texts);
+					for (int i = 0; i < count; i++) {
+						if (texts[i] == null) {
+							texts[i] = ""; //$NON-NLS-1$
+						}
+					}
+					grid.setTexts(column, start, texts);
+				}
+			}
+		}
+	}
+
 	private void updateRowHeader(Widget widget) {
 		if (rowHeaderLabelProvider != null) {
 			ViewerCell cell = getViewerRowFromItem(widget).getCell(
@@ -352,6 +514,116 @@ public class GridTableViewer extends AbstractTableViewer {
 		this.rowHeaderLabelProvider = rowHeaderLabelProvider;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+  protected void mapElement(Object element, Widget item) {
+		super.mapElement(element, item);
+		ElementKey key = new ElementKey(element, getComparer());
+		Object mapped = elementIndex.get(key);
+		if (mapped == null || mapped == item) {
+			elementIndex.put(key, item);
+		} else if (mapped instanceof Widget) {
+			elementIndex.put(key, new Widget[] { (Widget) mapped, item });
+		} else {
+			Widget[] widgets = (Widget[]) mapped;
+			for (int i = 0; i < widgets.length; i++) {
+				if (widgets[i] == item) {
+					return;
+				}
+			}
+			Widget[] newWidgets = new Widget[widgets.length + 1];
+			System.arraycopy(widgets, 0, newWidgets, 0, widgets.length);
+			newWidgets[widgets.length] = item;
+			elementIndex.put(key, newWidgets);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected void unmapElement(Object element) {
+		super.unmapElement(element);
+		elementIndex.remove(new ElementKey(element, getComparer()));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected void unmapElement(Object element, Widget item) {
+		super.unmapElement(element, item);
+		ElementKey key = new ElementKey(element, getComparer());
+		Object mapped = elementIndex.get(key);
+		if (mapped == item) {
+			elementIndex.remove(key);
+		} else if (mapped instanceof Widget[]) {
+			Widget[] widgets = (Widget[]) mapped;
+			int index = -1;
+			for (int i = 0; i < widgets.length && index == -1; i++) {
+				if (widgets[i] == item) {
+					index = i;
+				}
+			}
+			if (index != -1) {
+				if (widgets.length == 2) {
+					elementIndex.put(key, widgets[1 - index]);
+				} else {
+					Widget[] newWidgets = new Widget[widgets.length - 1];
+					System.arraycopy(widgets, 0, newWidgets, 0, index);
+					System.arraycopy(widgets, index + 1, newWidgets, index,
+							newWidgets.length - index);
+					elementIndex.put(key, newWidgets);
+				}
+			}
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected void unmapAllElements() {
+		super.unmapAllElements();
+		elementIndex.clear();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  public void setComparer(IElementComparer comparer) {
+		super.setComparer(comparer);
+		// keys depend on the comparer
+		Map oldIndex = elementIndex;
+		elementIndex = new HashMap(oldIndex.size() * 2);
+		Iterator iterator = oldIndex.values().iterator();
+		while (iterator.hasNext()) {
+			Object mapped = iterator.next();
+			Widget[] widgets = mapped instanceof Widget ? new Widget[] { (Widget) mapped }
+					: (Widget[]) mapped;
+			for (int i = 0; i < widgets.length; i++) {
+				if (!widgets[i].isDisposed() && widgets[i].getData() != null) {
+					mapElement(widgets[i].getData(), widgets[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Uses an index of the associated elements instead of searching all rows.
+	 * </p>
+	 */
+	@Override
+  protected Widget doFindItem(Object element) {
+		Widget result = null;
+		Object mapped = elementIndex.get(new ElementKey(element, getComparer()));
+		Widget[] widgets = mapped instanceof Widget[] ? (Widget[]) mapped : null;
+		if (widgets == null && mapped != null) {
+			widgets = new Widget[] { (Widget) mapped };
+		}
+		for (int i = 0; widgets != null && i < widgets.length && result == null; i++) {
+			if (!widgets[i].isDisposed()) {
+				result = widgets[i];
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Refresh row headers only
 	 *
@@ -360,17 +632,237 @@ public class GridTableViewer extends AbstractTableViewer {
 	 *            be refreshed
 	 */
 	public void refreshRowHeaders(Object element) {
-		boolean refresh = element == null;
+		int start = 0;
+		int itemCount = grid.getItemCount();
+		if (element != null) {
+			Widget item = findItem(element);
+			start = item instanceof GridItem ? grid.indexOf((GridItem) item)
+					: itemCount;
+		}
+		for (int i = start; i < itemCount; i++) {
+			updateRowHeader(grid.getItem(i));
+		}
+	}
 
-		GridItem[] items = getGrid().getItems();
-		for (int i = 0; i < items.length; i++) {
-			if (refresh || element.equals(items[i].getData())) {
-				refresh = true;
-				updateRowHeader(items[i]);
+	/**
+	 * Sets the input of this viewer and loads its elements in the background.
+	 * The elements are fetched from the content provider in a background
+	 * thread and added to the viewer in chunks of <code>chunkSize</code>
+	 * elements, so that the first rows are shown while the remaining elements
+	 * are still being added. Setting another input cancels the job.
+	 * <p>
+	 * The content provider must be an {@link IStructuredContentProvider} whose
+	 * <code>getElements</code> method can be called from a background thread.
+	 * For other content providers, the input is set synchronously and
+	 * <code>null</code> is returned.
+	 * </p>
+	 *
+	 * @param input
+	 *            the input of this viewer
+	 * @param chunkSize
+	 *            the number of elements that are added with one request
+	 * @return a handle to cancel the loading or <code>null</code>
+	 * @see GridViewerInputJob
+	 */
+	public GridViewerInputJob setInputAsync(Object input, int chunkSize) {
+		cancelInputJob();
+		GridViewerInputJob result = null;
+		if (getContentProvider() instanceof IStructuredContentProvider
+				&& !(getContentProvider() instanceof ILazyContentProvider)) {
+			result = new GridViewerInputJob(getControl().getDisplay(),
+					(IStructuredContentProvider) getContentProvider(), input,
+					chunkSize) {
+				void addElements(Object[] elements) {
+					add(elements);
+				}
+
+				Object[] sortElements(Object[] elements) {
+					ViewerComparator comparator = getComparator();
+					if (comparator != null) {
+						comparator.sort(GridTableViewer.this, elements);
+					}
+					return elements;
+				}
+
+				void finished() {
+					if (inputJob == this) {
+						inputJob = null;
+					}
+				}
+			};
+			inputJob = result;
+		}
+		setInput(input);
+		if (result != null) {
+			result.start();
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected void inputChanged(Object input, Object oldInput) {
+		if (inputJob != null && inputJob.getInput() != input) {
+			cancelInputJob();
+		}
+		super.inputChanged(input, oldInput);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+  protected Object[] getRawChildren(Object parent) {
+		if (inputJob != null && equals(parent, getRoot())) {
+			return inputJob.getLoadedElements();
+		}
+		return super.getRawChildren(parent);
+	}
+
+	private void cancelInputJob() {
+		if (inputJob != null) {
+			GridViewerInputJob job = inputJob;
+			inputJob = null;
+			job.cancel();
+		}
+	}
+
+	/**
+	 * Refreshes this viewer by applying only the differences between the rows
+	 * of the grid and the elements of the content provider. Elements are
+	 * matched with their rows by key, using the viewer's
+	 * {@link IElementComparer} if one is set. Rows of removed elements are
+	 * disposed, rows for inserted elements are created and rows of moved
+	 * elements are recreated at their new position. Existing rows are only
+	 * relabeled if their element is contained in <code>changedElements</code>.
+	 * <p>
+	 * In contrast to {@link #refresh()}, which updates every row, the number
+	 * of rows touched by this method depends on the size of the change only.
+	 * Viewers with an {@link ILazyContentProvider} are refreshed completely.
+	 * </p>
+	 *
+	 * @param changedElements
+	 *            the elements whose labels have changed or <code>null</code>
+	 */
+	public void refreshChanged(final Object[] changedElements) {
+		if (getContentProvider() instanceof ILazyContentProvider) {
+			refresh();
+		} else {
+			preservingSelection(new Runnable() {
+				public void run() {
+					internalRefreshChanged(changedElements);
+				}
+			});
+		}
+	}
+
+	private void internalRefreshChanged(Object[] changedElements) {
+		IElementComparer comparer = getComparer();
+		Object[] elements = getSortedChildren(getRoot());
+		Map newIndices = new HashMap(elements.length * 2);
+		for (int i = 0; i < elements.length; i++) {
+			ElementKey key = new ElementKey(elements[i], comparer);
+			if (!newIndices.containsKey(key)) {
+				newIndices.put(key, new Integer(i));
+			}
+		}
+		int itemCount = grid.getItemCount();
+		int[] positions = new int[itemCount];
+		boolean[] claimed = new boolean[elements.length];
+		for (int i = 0; i < itemCount; i++) {
+			Object data = grid.getItem(i).getData();
+			Integer index = null;
+			if (data != null) {
+				index = (Integer) newIndices.get(new ElementKey(data, comparer));
+			}
+			positions[i] = -1;
+			if (index != null && !claimed[index.intValue()]) {
+				claimed[index.intValue()] = true;
+				positions[i] = index.intValue();
+			}
+		}
+		boolean[] stable = getStableItems(positions);
+		int keptCount = 0;
+		for (int i = 0; i < itemCount; i++) {
+			if (stable[i]) {
+				keptCount++;
+			}
+		}
+		int[] kept = new int[keptCount];
+		int[] removed = new int[itemCount - keptCount];
+		int keptIndex = 0;
+		int removedIndex = 0;
+		for (int i = 0; i < itemCount; i++) {
+			if (stable[i]) {
+				kept[keptIndex++] = positions[i];
+			} else {
+				GridItem item = grid.getItem(i);
+				if (item.getData() != null) {
+					disassociate(item);
+				}
+				removed[removedIndex++] = i;
+			}
+		}
+		if (removed.length > 0) {
+			doRemove(removed);
+		}
+		Set changed = new HashSet();
+		if (changedElements != null) {
+			for (int i = 0; i < changedElements.length; i++) {
+				changed.add(new ElementKey(changedElements[i], comparer));
+			}
+		}
+		keptIndex = 0;
+		for (int i = 0; i < elements.length; i++) {
+			if (keptIndex < kept.length && kept[keptIndex] == i) {
+				keptIndex++;
+				if (!changed.isEmpty()
+						&& changed.contains(new ElementKey(elements[i], comparer))) {
+					updateItem(grid.getItem(i), elements[i]);
+				}
+			} else {
+				Widget item = internalCreateNewRowPart(SWT.NONE, i).getItem();
+				updateItem(item, elements[i]);
 			}
 		}
 	}
 
+	/*
+	 * Returns the rows which keep their relative order, i.e. the longest
+	 * increasing subsequence of the new positions. All other rows have to be
+	 * moved or removed.
+	 */
+	private static boolean[] getStableItems(int[] positions) {
+		int length = positions.length;
+		int[] tails = new int[length];
+		int[] previous = new int[length];
+		int size = 0;
+		for (int i = 0; i < length; i++) {
+			if (positions[i] >= 0) {
+				int low = 0;
+				int high = size;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (positions[tails[middle]] < positions[i]) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				previous[i] = low > 0 ? tails[low - 1] : -1;
+				tails[low] = i;
+				if (low == size) {
+					size++;
+				}
+			}
+		}
+		boolean[] result = new boolean[length];
+		int index = size > 0 ? tails[size - 1] : -1;
+		while (index >= 0) {
+			result[index] = true;
+			index = previous[index];
+		}
+		return result;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -406,13 +898,9 @@ public class GridTableViewer extends AbstractTableViewer {
 			if( selection instanceof SelectionWithFocusRow ) {
 				Object el = ((SelectionWithFocusRow)selection).getFocusElement();
 				if( el != null ) {
-					GridItem[] items = grid.getItems();
-					for( int i = 0; i < items.length; i++) {
-						GridItem item = items[i];
-						if( item.getData() == el || item.getData().equals(el) || (getComparer() != null && getComparer().equals(item.getData(), el)) ) {
-							grid.setFocusItem(item);
-							break;
-						}
+					Widget item = findItem(el);
+					if( item instanceof GridItem ) {
+						grid.setFocusItem((GridItem) item);
 					}
 				}
 			}
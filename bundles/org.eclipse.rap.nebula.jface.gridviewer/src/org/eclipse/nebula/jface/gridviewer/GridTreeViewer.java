@@ -11,20 +11,28 @@
  *******************************************************************************/ 
 package org.eclipse.nebula.jface.gridviewer;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jface.viewers.AbstractTreeViewer;
 import org.eclipse.jface.viewers.CellLabelProvider;
 import org.eclipse.jface.viewers.ColumnViewerEditor;
 import org.eclipse.jface.viewers.ColumnViewerEditorActivationStrategy;
+import org.eclipse.jface.viewers.IContentProvider;
+import org.eclipse.jface.viewers.IElementComparer;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.ITreePathContentProvider;
 import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeSelection;
 import org.eclipse.jface.viewers.ViewerCell;
+import org.eclipse.jface.viewers.ViewerComparator;
 import org.eclipse.jface.viewers.ViewerRow;
+import org.eclipse.nebula.jface.gridviewer.internal.ElementKey;
 import org.eclipse.nebula.widgets.grid.Grid;
 import org.eclipse.nebula.widgets.grid.GridItem;
 import org.eclipse.swt.SWT;
@@ -32,9 +40,9 @@ import org.eclipse.swt.events.TreeListener;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Item;
-import org.eclipse.swt.widgets.Tree;
-import org.eclipse.swt.widgets.TreeItem;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Widget;
 
 /**
@@ -45,9 +53,11 @@ import org.eclipse.swt.widgets.Widget;
  * configured with a domain-specific content provider, label provider, element
  * filter (optional), and element sorter (optional).
  * <p>
- * Content providers for grid tree viewers must implement the
- * {@link ITreeContentProvider} interface.
- * <p><b>The current implementation does not support lazy content providers.</b></p>
+ * Content providers for grid tree viewers must implement either the
+ * {@link ITreeContentProvider} interface or the
+ * {@link ILazyTreeContentProvider} interface. Lazy content providers require
+ * a grid with the <code>SWT.VIRTUAL</code> style; their elements are only
+ * requested for the rows the grid shows.
  */
 public class GridTreeViewer extends AbstractTreeViewer {
 	
@@ -64,6 +74,23 @@ public class GridTreeViewer extends AbstractTreeViewer {
 	
 	private CellLabelProvider rowHeaderLabelProvider;
 
+	private boolean contentProviderIsLazy;
+
+	/**
+	 * Key of the widget data that holds the child count of a collapsed item
+	 * of a lazy tree.
+	 */
+	private static final String CHILD_COUNT = GridTreeViewer.class.getName()
+			+ ".childCount"; //$NON-NLS-1$
+
+	/** The item whose children are created lazily while it is expanded. */
+	private Widget expandingItem;
+
+	/** Index of the root item that was last resolved lazily. */
+	private int rootIndexHint;
+
+	private GridViewerInputJob inputJob;
+
 
 	/**
      * Creates a grid tree viewer on a newly-created grid control under the given
@@ -338,60 +365,470 @@ public class GridTreeViewer extends AbstractTreeViewer {
 	public void remove(final Object parentOrTreePath, final int index) {
 		if (checkBusy())
 			return;
-		final List oldSelection = new LinkedList(Arrays
-				.asList(((TreeSelection) getSelection()).getPaths()));
-		preservingSelection(new Runnable() {
-			public void run() {
-				TreePath removedPath = null;
-				if (internalIsInputOrEmptyPath(parentOrTreePath)) {
-					Tree tree = (Tree) getControl();
-					if (index < tree.getItemCount()) {
-						TreeItem item = tree.getItem(index);
-						if (item.getData() != null) {
-							removedPath = getTreePathFromItem(item);
-							disassociate(item);
-						}
-						item.dispose();
-					}
-				} else {
-					Widget[] parentItems = internalFindItems(parentOrTreePath);
-					for (int i = 0; i < parentItems.length; i++) {
-						TreeItem parentItem = (TreeItem) parentItems[i];
-						if (parentItem.isDisposed())
-							continue;
-						if (index < parentItem.getItemCount()) {
-							TreeItem item = parentItem.getItem(index);
-							if (item.getData() != null) {
-								removedPath = getTreePathFromItem(item);
-								disassociate(item);
+		List items = new ArrayList();
+		if (internalIsInputOrEmptyPath(parentOrTreePath)) {
+			if (index < grid.getRootItemCount()) {
+				items.add(grid.getRootItem(index));
+			}
+		} else {
+			Widget[] parentItems = internalFindItems(parentOrTreePath);
+			for (int i = 0; i < parentItems.length; i++) {
+				GridItem parentItem = (GridItem) parentItems[i];
+				if (parentItem.isDisposed())
+					continue;
+				if (index < parentItem.getItemCount()) {
+					items.add(parentItem.getItem(index));
+				}
+			}
+		}
+		removeItems(items);
+	}
+
+	/**
+	 * Removes the given elements from this viewer. All items that show one of
+	 * the elements are removed from the grid at once, and the selection is
+	 * updated if required. Removing many elements with this method is much
+	 * faster than removing them one by one.
+	 *
+	 * @param elementsOrTreePaths
+	 *            the elements or tree paths to remove
+	 */
+	public void remove(final Object[] elementsOrTreePaths) {
+		assertElementsNotNull(elementsOrTreePaths);
+		if (elementsOrTreePaths.length == 0 || checkBusy())
+			return;
+		Object input = getInput();
+		List items = new ArrayList();
+		for (int i = 0; i < elementsOrTreePaths.length; i++) {
+			if (equals(elementsOrTreePaths[i], input)) {
+				setInput(null);
+				return;
+			}
+			Widget[] elementItems = internalFindItems(elementsOrTreePaths[i]);
+			for (int j = 0; j < elementItems.length; j++) {
+				if (elementItems[j] instanceof GridItem
+						&& !elementItems[j].isDisposed()) {
+					items.add(elementItems[j]);
+				}
+			}
+		}
+		removeItems(items);
+	}
+
+	/**
+	 * Disassociates and removes the given items with a single call to
+	 * {@link Grid#removeItems(GridItem[])}. Selected paths that start with the
+	 * path of a removed item are looked up by their prefixes in a hash set.
+	 * Like {@link AbstractTreeViewer}, a collapsed parent that lost all its
+	 * children gets a dummy child if it is still expandable.
+	 */
+	private void removeItems(List items) {
+		if (items.isEmpty())
+			return;
+		TreePath[] oldSelection = ((TreeSelection) getSelection()).getPaths();
+		IElementComparer pathComparer = new TreePathComparer(getComparer());
+		Set removedPaths = new HashSet();
+		Set parentItems = new HashSet();
+		for (int i = 0; i < items.size(); i++) {
+			GridItem item = (GridItem) items.get(i);
+			if (item.getParentItem() != null) {
+				parentItems.add(item.getParentItem());
+			}
+			if (item.getData() != null) {
+				removedPaths.add(new ElementKey(getTreePathFromItem(item),
+						pathComparer));
+				disassociate(item);
+			}
+		}
+		grid.removeItems((GridItem[]) items.toArray(new GridItem[items.size()]));
+		for (Iterator iterator = parentItems.iterator(); iterator.hasNext();) {
+			GridItem parentItem = (GridItem) iterator.next();
+			if (!parentItem.isDisposed() && !parentItem.isExpanded()
+					&& parentItem.getItemCount() == 0
+					&& hasChildren(parentItem)) {
+				newItem(parentItem, SWT.NONE, -1);
+			}
+		}
+		if (!removedPaths.isEmpty()) {
+			List newSelection = new ArrayList(oldSelection.length);
+			for (int i = 0; i < oldSelection.length; i++) {
+				if (!hasRemovedPrefix(oldSelection[i], removedPaths,
+						pathComparer)) {
+					newSelection.add(oldSelection[i]);
+				}
+			}
+			if (newSelection.size() < oldSelection.length) {
+				handleInvalidSelection(new TreeSelection(oldSelection,
+						getComparer()), new TreeSelection(
+						(TreePath[]) newSelection
+								.toArray(new TreePath[newSelection.size()]),
+						getComparer()));
+			}
+		}
+	}
+
+	private boolean hasChildren(GridItem item) {
+		boolean result = false;
+		IContentProvider provider = getContentProvider();
+		if (item.getData() != null) {
+			if (provider instanceof ITreePathContentProvider) {
+				result = ((ITreePathContentProvider) provider)
+						.hasChildren(getTreePathFromItem(item));
+			} else if (provider instanceof ITreeContentProvider) {
+				result = ((ITreeContentProvider) provider).hasChildren(item
+						.getData());
+			}
+		}
+		return result;
+	}
+
+	private static boolean hasRemovedPrefix(TreePath path, Set removedPaths,
+			IElementComparer pathComparer) {
+		boolean result = false;
+		TreePath prefix = path;
+		while (!result && prefix.getSegmentCount() > 0) {
+			result = removedPaths.contains(new ElementKey(prefix, pathComparer));
+			prefix = prefix.getParentPath();
+		}
+		return result;
+	}
+
+	/**
+	 * Compares tree paths using the element comparer of the viewer.
+	 */
+	private static final class TreePathComparer implements IElementComparer {
+		private final IElementComparer comparer;
+
+		TreePathComparer(IElementComparer comparer) {
+			this.comparer = comparer;
+		}
+
+		public boolean equals(Object a, Object b) {
+			return ((TreePath) a).equals(b, comparer);
+		}
+
+		public int hashCode(Object element) {
+			return ((TreePath) element).hashCode(comparer);
+		}
+	}
+
+	/** {@inheritDoc} */
+	protected void hookControl(Control control) {
+		super.hookControl(control);
+		if ((control.getStyle() & SWT.VIRTUAL) != 0) {
+			control.addListener(SWT.SetData, new Listener() {
+				public void handleEvent(Event event) {
+					if (contentProviderIsLazy) {
+						GridItem item = (GridItem) event.item;
+						GridItem parentItem = item.getParentItem();
+						if (parentItem == null) {
+							int index = getRootItemIndex(item);
+							if (index != -1) {
+								virtualLazyUpdateWidget(getGrid(), index);
 							}
-							item.dispose();
+						} else {
+							virtualLazyUpdateWidget(parentItem, event.index);
 						}
 					}
 				}
-				if (removedPath != null) {
-					boolean removed = false;
-					for (Iterator it = oldSelection.iterator(); it
-							.hasNext();) {
-						TreePath path = (TreePath) it.next();
-						if (path.startsWith(removedPath, getComparer())) {
-							it.remove();
-							removed = true;
-						}
+			});
+		}
+	}
+
+	/** {@inheritDoc} */
+	public void setContentProvider(IContentProvider provider) {
+		contentProviderIsLazy = provider instanceof ILazyTreeContentProvider;
+		if (contentProviderIsLazy && getInput() == null) {
+			// lazy providers look up elements for every resolved row
+			setUseHashlookup(true);
+		}
+		super.setContentProvider(provider);
+	}
+
+	/** {@inheritDoc} */
+	protected void assertContentProviderType(IContentProvider provider) {
+		if (!(provider instanceof ILazyTreeContentProvider)) {
+			super.assertContentProviderType(provider);
+		}
+	}
+
+	/** {@inheritDoc} */
+	protected Object[] getRawChildren(Object parent) {
+		if (contentProviderIsLazy) {
+			return new Object[0];
+		}
+		if (inputJob != null && equals(parent, getRoot())) {
+			return inputJob.getLoadedElements();
+		}
+		return super.getRawChildren(parent);
+	}
+
+	/**
+	 * Sets the input of this viewer and loads its root elements in the
+	 * background. The root elements are fetched from the content provider in
+	 * a background thread and added to the viewer in chunks of
+	 * <code>chunkSize</code> elements, so that the first rows are shown while
+	 * the remaining elements are still being added. Children are created as
+	 * usual when their parents are expanded. Setting another input cancels
+	 * the job.
+	 * <p>
+	 * The <code>getElements</code> method of the content provider must be
+	 * safe to be called from a background thread. For lazy content providers,
+	 * the input is set synchronously and <code>null</code> is returned.
+	 * </p>
+	 *
+	 * @param input
+	 *            the input of this viewer
+	 * @param chunkSize
+	 *            the number of root elements that are added with one request
+	 * @return a handle to cancel the loading or <code>null</code>
+	 * @see GridViewerInputJob
+	 */
+	public GridViewerInputJob setInputAsync(Object input, int chunkSize) {
+		cancelInputJob();
+		GridViewerInputJob result = null;
+		if (!contentProviderIsLazy
+				&& getContentProvider() instanceof IStructuredContentProvider) {
+			result = new GridViewerInputJob(getControl().getDisplay(),
+					(IStructuredContentProvider) getContentProvider(), input,
+					chunkSize) {
+				void addElements(Object[] elements) {
+					add(getRoot(), elements);
+				}
+
+				Object[] sortElements(Object[] elements) {
+					ViewerComparator comparator = getComparator();
+					if (comparator != null) {
+						comparator.sort(GridTreeViewer.this, elements);
 					}
-					if (removed) {
-						setSelection(new TreeSelection(
-								(TreePath[]) oldSelection
-										.toArray(new TreePath[oldSelection
-												.size()]), getComparer()),
-								false);
+					return elements;
+				}
+
+				void finished() {
+					if (inputJob == this) {
+						inputJob = null;
 					}
+				}
+			};
+			inputJob = result;
+		}
+		setInput(input);
+		if (result != null) {
+			result.start();
+		}
+		return result;
+	}
+
+	/** {@inheritDoc} */
+	protected void inputChanged(Object input, Object oldInput) {
+		if (inputJob != null && inputJob.getInput() != input) {
+			cancelInputJob();
+		}
+		super.inputChanged(input, oldInput);
+	}
+
+	private void cancelInputJob() {
+		if (inputJob != null) {
+			GridViewerInputJob job = inputJob;
+			inputJob = null;
+			job.cancel();
+		}
+	}
 
+	/** {@inheritDoc} */
+	protected Object getParentElement(Object element) {
+		if (contentProviderIsLazy && !(element instanceof TreePath)) {
+			return ((ILazyTreeContentProvider) getContentProvider())
+					.getParent(element);
+		}
+		return super.getParentElement(element);
+	}
+
+	/** {@inheritDoc} */
+	protected void internalInitializeTree(Control widget) {
+		if (contentProviderIsLazy) {
+			if (widget.getData() != null) {
+				virtualLazyUpdateChildCount(widget, 0);
+			}
+		} else {
+			super.internalInitializeTree(widget);
+		}
+	}
+
+	/** {@inheritDoc} */
+	protected void createChildren(Widget widget) {
+		if (contentProviderIsLazy) {
+			// children are created through setChildCount and resolved by the
+			// grid once they are shown, a collapsed item holds a placeholder
+			Integer childCount = (Integer) widget.getData(CHILD_COUNT);
+			Item[] children = getChildren(widget);
+			if (childCount != null) {
+				widget.setData(CHILD_COUNT, null);
+				((GridItem) widget).setItemCount(childCount.intValue());
+			} else if (children != null && children.length == 1
+					&& children[0].getData() == null) {
+				expandingItem = widget;
+				try {
+					virtualLazyUpdateChildCount(widget, children.length);
+				} finally {
+					expandingItem = null;
 				}
 			}
-		});
+		} else {
+			super.createChildren(widget);
+		}
 	}
-	
+
+	/**
+	 * For a lazy tree content provider, sets the number of children of the
+	 * given element or tree path. The child items are created empty and their
+	 * elements are requested through
+	 * {@link ILazyTreeContentProvider#updateElement(Object, int)} once the
+	 * grid shows them. A collapsed item gets a single placeholder child, the
+	 * given count is remembered and applied when the item is expanded.
+	 *
+	 * @param elementOrTreePath
+	 *            the element, the input element or a tree path
+	 * @param count
+	 *            the number of children
+	 */
+	public void setChildCount(final Object elementOrTreePath, final int count) {
+		if (checkBusy())
+			return;
+		if (internalIsInputOrEmptyPath(elementOrTreePath)) {
+			setRootItemCount(count);
+		} else {
+			Widget[] items = internalFindItems(elementOrTreePath);
+			for (int i = 0; i < items.length; i++) {
+				GridItem item = (GridItem) items[i];
+				if (!item.isDisposed()) {
+					int itemCount = count;
+					Integer childCount = null;
+					if (!item.isExpanded() && item != expandingItem
+							&& count > 1) {
+						itemCount = 1;
+						childCount = new Integer(count);
+					}
+					item.setData(CHILD_COUNT, childCount);
+					disassociateChildren(item, itemCount);
+					item.setItemCount(itemCount);
+				}
+			}
+		}
+	}
+
+	/**
+	 * For a lazy tree content provider, replaces the element at the given
+	 * index of the given parent element or tree path. This method is meant to
+	 * be called from {@link ILazyTreeContentProvider#updateElement(Object, int)}.
+	 *
+	 * @param parentElementOrTreePath
+	 *            the parent element, the input element or a tree path to the
+	 *            parent element
+	 * @param index
+	 *            the child index
+	 * @param element
+	 *            the new element
+	 */
+	public void replace(Object parentElementOrTreePath, int index,
+			Object element) {
+		if (checkBusy())
+			return;
+		if (internalIsInputOrEmptyPath(parentElementOrTreePath)) {
+			if (index < grid.getRootItemCount()) {
+				replaceItem(grid.getRootItem(index), element);
+			}
+		} else {
+			Widget[] parentItems = internalFindItems(parentElementOrTreePath);
+			for (int i = 0; i < parentItems.length; i++) {
+				GridItem parentItem = (GridItem) parentItems[i];
+				if (!parentItem.isDisposed()
+						&& index < parentItem.getItemCount()) {
+					replaceItem(parentItem.getItem(index), element);
+				}
+			}
+		}
+	}
+
+	private void replaceItem(GridItem item, Object element) {
+		Object oldElement = item.getData();
+		updateItem(item, element);
+		if (contentProviderIsLazy
+				&& (oldElement == null || !equals(oldElement, element))) {
+			disassociateChildren(item, 0);
+			item.setItemCount(0);
+			virtualLazyUpdateChildCount(item, 0);
+		}
+	}
+
+	private void setRootItemCount(int count) {
+		int rootItemCount = grid.getRootItemCount();
+		for (int i = count; i < rootItemCount; i++) {
+			GridItem item = grid.getRootItem(i);
+			if (item.getData() != null) {
+				disassociateChildren(item, 0);
+				disassociate(item);
+			}
+		}
+		while (rootItemCount > count) {
+			grid.getRootItem(--rootItemCount).dispose();
+		}
+		while (rootItemCount < count) {
+			new GridItem(grid, SWT.NONE);
+			rootItemCount++;
+		}
+	}
+
+	private void disassociateChildren(GridItem item, int start) {
+		for (int i = start; i < item.getItemCount(); i++) {
+			GridItem child = item.getItem(i);
+			if (child.getData() != null) {
+				disassociateChildren(child, 0);
+				disassociate(child);
+			}
+		}
+	}
+
+	private int getRootItemIndex(GridItem item) {
+		// root items are usually resolved in order, so search around the
+		// index of the last one
+		int count = grid.getRootItemCount();
+		int result = -1;
+		int below = rootIndexHint;
+		int above = rootIndexHint - 1;
+		while (result == -1 && (below < count || above >= 0)) {
+			if (below < count && grid.getRootItem(below) == item) {
+				result = below;
+			} else if (above >= 0 && above < count
+					&& grid.getRootItem(above) == item) {
+				result = above;
+			}
+			below++;
+			above--;
+		}
+		if (result != -1) {
+			rootIndexHint = result;
+		}
+		return result;
+	}
+
+	private void virtualLazyUpdateWidget(Widget parent, int index) {
+		Object parentElement = parent.getData();
+		if (parentElement != null) {
+			((ILazyTreeContentProvider) getContentProvider()).updateElement(
+					parentElement, index);
+		}
+	}
+
+	private void virtualLazyUpdateChildCount(Widget widget,
+			int currentChildCount) {
+		Object element = widget.getData();
+		if (element != null) {
+			((ILazyTreeContentProvider) getContentProvider()).updateChildCount(
+					element, currentChildCount);
+		}
+	}
+
 	/**
 	 * Label provider used by calculate the row header text
 	 * 
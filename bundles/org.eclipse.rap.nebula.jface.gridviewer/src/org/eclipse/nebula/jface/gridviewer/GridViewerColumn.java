@@ -13,6 +13,7 @@
 
 package org.eclipse.nebula.jface.gridviewer;
 
+import org.eclipse.jface.viewers.CellLabelProvider;
 import org.eclipse.jface.viewers.ColumnViewer;
 import org.eclipse.jface.viewers.EditingSupport;
 import org.eclipse.jface.viewers.ViewerColumn;
@@ -40,6 +41,9 @@ public final class GridViewerColumn extends ViewerColumn
     /** Listener used to get informed when the colum resizes */
     protected Listener columnResizeListener = null;
 
+    /** The label provider that was set on this column. */
+    private CellLabelProvider labelProvider;
+
 
     /**
      * Create a new column in the {@link GridTableViewer}
@@ -187,6 +191,28 @@ public final class GridViewerColumn extends ViewerColumn
     }
 
 
+    /** {@inheritDoc} */
+    @Override
+    public void setLabelProvider(CellLabelProvider labelProvider)
+    {
+        super.setLabelProvider(labelProvider);
+        this.labelProvider = labelProvider;
+    }
+
+    CellLabelProvider getColumnLabelProvider()
+    {
+        return labelProvider;
+    }
+
+    GridRangeLabelProvider getRangeLabelProvider()
+    {
+        if (labelProvider instanceof GridRangeLabelProvider)
+        {
+            return (GridRangeLabelProvider)labelProvider;
+        }
+        return null;
+    }
+
     private void hookColumnResizeListener() {
         if (columnResizeListener == null)
         {
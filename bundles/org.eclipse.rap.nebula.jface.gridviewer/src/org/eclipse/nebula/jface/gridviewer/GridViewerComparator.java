@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.nebula.jface.gridviewer;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.eclipse.jface.viewers.CellLabelProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.ContentViewer;
+import org.eclipse.jface.viewers.IBaseLabelProvider;
+import org.eclipse.jface.viewers.ILabelProvider;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.rap.rwt.RWT;
+
+/**
+ * A viewer comparator that computes the sort key of each element only once
+ * per sort.
+ * <p>
+ * A {@link ViewerComparator} compares the labels of two elements in each of
+ * the O(n log n) comparisons of a sort. This comparator computes a key for
+ * each element first, by default a {@link java.text.CollationKey} of the
+ * element's text, and then sorts the elements by their keys. The text is
+ * taken from the label provider of the given column, or from the label
+ * provider of the viewer if there is no column. Texts of a column with a
+ * {@link GridRangeLabelProvider} are computed with a single call.
+ * </p>
+ * <p>
+ * When the sort direction is changed, the viewer should be refreshed with
+ * <code>refresh(false)</code>. The existing rows are then reassigned to the
+ * sorted elements and only the rows whose element has changed are updated.
+ * </p>
+ */
+public class GridViewerComparator extends ViewerComparator {
+	private final GridViewerColumn column;
+	private boolean descending;
+	private Collator collator;
+
+	/**
+	 * Creates a comparator that sorts the elements by the text of the viewer's
+	 * label provider.
+	 */
+	public GridViewerComparator() {
+		this(null);
+	}
+
+	/**
+	 * Creates a comparator that sorts the elements by the text of the given
+	 * column.
+	 *
+	 * @param column
+	 *            the column to sort by or <code>null</code> to use the label
+	 *            provider of the viewer
+	 */
+	public GridViewerComparator(GridViewerColumn column) {
+		this.column = column;
+	}
+
+	/**
+	 * Sets whether the elements are sorted in descending order. Categories
+	 * are always sorted in ascending order.
+	 *
+	 * @param descending
+	 *            <code>true</code> to sort in descending order
+	 */
+	public void setDescending(boolean descending) {
+		this.descending = descending;
+	}
+
+	/**
+	 * Returns whether the elements are sorted in descending order.
+	 *
+	 * @return <code>true</code> if the elements are sorted in descending order
+	 */
+	public boolean isDescending() {
+		return descending;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+  public int compare(Viewer viewer, Object e1, Object e2) {
+		int result = category(e1) - category(e2);
+		if (result == 0) {
+			result = compareKeys(getSortKey(viewer, e1), getSortKey(viewer, e2));
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts the given elements in place. The sort key of each element is
+	 * computed only once.
+	 *
+	 * @param viewer
+	 *            the viewer
+	 * @param elements
+	 *            the elements to sort
+	 */
+	@Override
+  public void sort(Viewer viewer, Object[] elements) {
+		if (elements.length > 1) {
+			Comparable[] keys = getSortKeys(viewer, elements);
+			SortEntry[] entries = new SortEntry[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				entries[i] = new SortEntry(elements[i], category(elements[i]),
+						keys[i]);
+			}
+			Arrays.sort(entries, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					SortEntry entry1 = (SortEntry) o1;
+					SortEntry entry2 = (SortEntry) o2;
+					int result = entry1.category - entry2.category;
+					if (result == 0) {
+						result = compareKeys(entry1.key, entry2.key);
+					}
+					return result;
+				}
+			});
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = entries[i].element;
+			}
+		}
+	}
+
+	/**
+	 * Returns the key by which the given element is sorted. The keys of all
+	 * elements must be mutually comparable. The default implementation returns
+	 * a collation key of the element's text.
+	 *
+	 * @param viewer
+	 *            the viewer
+	 * @param element
+	 *            the element
+	 * @return the sort key, may be <code>null</code>
+	 */
+	protected Comparable getSortKey(Viewer viewer, Object element) {
+		return getCollator().getCollationKey(getText(viewer, element));
+	}
+
+	/**
+	 * Returns the sort keys of the given elements. If the column has a
+	 * {@link GridRangeLabelProvider}, the default implementation computes the
+	 * texts of all elements with a single call and returns their collation
+	 * keys. Otherwise it calls {@link #getSortKey(Viewer, Object)} for each
+	 * element. Subclasses that sort such a column by other keys must override
+	 * this method as well.
+	 *
+	 * @param viewer
+	 *            the viewer
+	 * @param elements
+	 *            the elements
+	 * @return the sort keys, in the order of the elements
+	 */
+	protected Comparable[] getSortKeys(Viewer viewer, Object[] elements) {
+		Comparable[] result = new Comparable[elements.length];
+		GridRangeLabelProvider rangeLabelProvider = column == null ? null
+				: column.getRangeLabelProvider();
+		if (rangeLabelProvider != null) {
+			String[] texts = new String[elements.length];
+			rangeLabelProvider.getTexts(elements, texts);
+			Collator collator = getCollator();
+			for (int i = 0; i < elements.length; i++) {
+				result[i] = collator.getCollationKey(texts[i] == null ? "" //$NON-NLS-1$
+						: texts[i]);
+			}
+		} else {
+			for (int i = 0; i < elements.length; i++) {
+				result[i] = getSortKey(viewer, elements[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the collator that is used to create the collation keys. The
+	 * default implementation returns a collator for the locale of the current
+	 * UI session.
+	 *
+	 * @return the collator
+	 */
+	protected Collator getCollator() {
+		if (collator == null) {
+			collator = Collator.getInstance(RWT.getLocale());
+		}
+		return collator;
+	}
+
+	private String getText(Viewer viewer, Object element) {
+		String result = null;
+		CellLabelProvider columnLabelProvider = column == null ? null : column
+				.getColumnLabelProvider();
+		if (columnLabelProvider instanceof ColumnLabelProvider) {
+			result = ((ColumnLabelProvider) columnLabelProvider)
+					.getText(element);
+		} else if (viewer instanceof ContentViewer) {
+			IBaseLabelProvider labelProvider = ((ContentViewer) viewer)
+					.getLabelProvider();
+			if (labelProvider instanceof ILabelProvider) {
+				result = ((ILabelProvider) labelProvider).getText(element);
+			}
+		}
+		return result == null ? "" : result; //$NON-NLS-1$
+	}
+
+	private int compareKeys(Comparable key1, Comparable key2) {
+		int result;
+		if (key1 == null) {
+			result = key2 == null ? 0 : -1;
+		} else if (key2 == null) {
+			result = 1;
+		} else {
+			result = key1.compareTo(key2);
+		}
+		return descending ? -result : result;
+	}
+
+	private static final class SortEntry {
+		final Object element;
+		final int category;
+		final Comparable key;
+
+		SortEntry(Object element, int category, Comparable key) {
+			this.element = element;
+			this.category = category;
+			this.key = key;
+		}
+	}
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.nebula.jface.gridviewer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.lifecycle.PhaseEvent;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.lifecycle.PhaseListener;
+import org.eclipse.rap.rwt.service.ServerPushSession;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.swt.SWTException;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * A handle for an input that a grid viewer loads in the background.
+ * <p>
+ * The elements of the input are fetched from the content provider in a
+ * background thread and added to the viewer in chunks on the UI thread. The
+ * content provider's <code>getElements</code> method must therefore be safe
+ * to be called from a thread other than the UI thread; it runs within the UI
+ * session of the viewer.
+ * </p>
+ * <p>
+ * The elements are sorted once before the first chunk is added. Every request
+ * of the UI session adds a single chunk, the next one is scheduled when the
+ * response has been rendered and sent to the client with a server push.
+ * </p>
+ *
+ * @see GridTableViewer#setInputAsync(Object, int)
+ * @see GridTreeViewer#setInputAsync(Object, int)
+ */
+public abstract class GridViewerInputJob {
+	private final Display display;
+	private final UISession uiSession;
+	private final IStructuredContentProvider contentProvider;
+	private final Object input;
+	private final int chunkSize;
+	private final ServerPushSession pushSession;
+	private final List loadedElements = new ArrayList();
+	private final PhaseListener renderListener;
+	private volatile boolean cancelled;
+	private boolean done;
+	private Object[] elements;
+	private int nextChunkStart;
+	private boolean chunkScheduled;
+
+	GridViewerInputJob(Display display,
+			IStructuredContentProvider contentProvider, Object input,
+			int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive."); //$NON-NLS-1$
+		}
+		this.display = display;
+		this.contentProvider = contentProvider;
+		this.input = input;
+		this.chunkSize = chunkSize;
+		uiSession = RWT.getUISession();
+		pushSession = new ServerPushSession();
+		renderListener = new RenderListener();
+	}
+
+	/**
+	 * Returns the input that is loaded by this job.
+	 *
+	 * @return the input
+	 */
+	public Object getInput() {
+		return input;
+	}
+
+	/**
+	 * Returns whether all elements of the input have been added to the viewer
+	 * or the job has been cancelled. Must be called from the UI thread.
+	 *
+	 * @return <code>true</code> if the job is done
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+	/**
+	 * Returns whether this job has been cancelled.
+	 *
+	 * @return <code>true</code> if the job has been cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Cancels this job. Elements that have already been added to the viewer
+	 * remain there. Must be called from the UI thread.
+	 */
+	public void cancel() {
+		if (!done) {
+			cancelled = true;
+			finish();
+		}
+	}
+
+	/**
+	 * Adds the given elements to the viewer. Called on the UI thread.
+	 */
+	abstract void addElements(Object[] elements);
+
+	/**
+	 * Returns the given elements in the order of the viewer. Called once on the
+	 * UI thread before the first chunk is added, may sort the given array.
+	 */
+	abstract Object[] sortElements(Object[] elements);
+
+	/**
+	 * Called on the UI thread when the job is done or cancelled.
+	 */
+	abstract void finished();
+
+	Object[] getLoadedElements() {
+		return loadedElements.toArray();
+	}
+
+	void start() {
+		pushSession.start();
+		RWT.getLifeCycle().addPhaseListener(renderListener);
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				uiSession.exec(new Runnable() {
+					public void run() {
+						load();
+					}
+				});
+			}
+		}, "GridViewerInputJob"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void load() {
+		final Object[] result;
+		try {
+			result = contentProvider.getElements(input);
+		} catch (final RuntimeException exception) {
+			asyncExec(new Runnable() {
+				public void run() {
+					finish();
+					throw exception;
+				}
+			});
+			return;
+		}
+		asyncExec(new Runnable() {
+			public void run() {
+				if (!cancelled) {
+					Object[] copy = new Object[result.length];
+					System.arraycopy(result, 0, copy, 0, result.length);
+					elements = sortElements(copy);
+					addNextChunk();
+				}
+			}
+		});
+	}
+
+	/*
+	 * Adds the next chunk on the UI thread. The following chunk is scheduled by
+	 * the render listener, after the response of the current request.
+	 */
+	private void addNextChunk() {
+		chunkScheduled = false;
+		if (!cancelled) {
+			int end = Math.min(elements.length, nextChunkStart + chunkSize);
+			Object[] chunk = new Object[end - nextChunkStart];
+			System.arraycopy(elements, nextChunkStart, chunk, 0, chunk.length);
+			nextChunkStart = end;
+			for (int i = 0; i < chunk.length; i++) {
+				loadedElements.add(chunk[i]);
+			}
+			if (chunk.length > 0) {
+				addElements(chunk);
+			}
+			if (nextChunkStart >= elements.length) {
+				finish();
+			}
+		}
+	}
+
+	private void finish() {
+		if (!done) {
+			done = true;
+			elements = null;
+			RWT.getLifeCycle().removePhaseListener(renderListener);
+			pushSession.stop();
+			finished();
+		}
+	}
+
+	private void asyncExec(Runnable runnable) {
+		try {
+			display.asyncExec(runnable);
+		} catch (SWTException exception) {
+			// display has been disposed
+			cancelled = true;
+		}
+	}
+
+	/*
+	 * Phase listeners are registered for all UI sessions, only requests of the
+	 * display of this job are taken into account.
+	 */
+	private final class RenderListener implements PhaseListener {
+
+		public PhaseId getPhaseId() {
+			return PhaseId.RENDER;
+		}
+
+		public void beforePhase(PhaseEvent event) {
+		}
+
+		public void afterPhase(PhaseEvent event) {
+			if (display.isDisposed()) {
+				RWT.getLifeCycle().removePhaseListener(this);
+			} else if (RWT.getUISession() == uiSession && elements != null
+					&& !done && !chunkScheduled) {
+				chunkScheduled = true;
+				asyncExec(new Runnable() {
+					public void run() {
+						addNextChunk();
+					}
+				});
+			}
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.nebula.jface.gridviewer.internal;
+
+import org.eclipse.jface.viewers.IElementComparer;
+
+/**
+ * Wraps a viewer element so that it can be used as the key of a hash based
+ * collection. Equality and hash code are delegated to the viewer's
+ * {@link IElementComparer} if there is one.
+ */
+public final class ElementKey {
+	private final Object element;
+	private final IElementComparer comparer;
+	private final int hashCode;
+
+	/**
+	 * Creates a key for the given element.
+	 *
+	 * @param element
+	 *            the element, must not be <code>null</code>
+	 * @param comparer
+	 *            the comparer of the viewer or <code>null</code>
+	 */
+	public ElementKey(Object element, IElementComparer comparer) {
+		this.element = element;
+		this.comparer = comparer;
+		hashCode = comparer == null ? element.hashCode() : comparer
+				.hashCode(element);
+	}
+
+	/**
+	 * @return the wrapped element
+	 */
+	public Object getElement() {
+		return element;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		boolean result = object == this;
+		if (!result && object instanceof ElementKey) {
+			Object other = ((ElementKey) object).element;
+			if (comparer == null) {
+				result = element == other || element.equals(other);
+			} else {
+				result = comparer.equals(element, other);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import org.eclipse.swt.SWT;
+
+
+/**
+ * An immutable <code>GridDataSource</code> that holds the cell texts in
+ * arrays. It can be shared by the grids of all UI sessions.
+ *
+ * @see Grid#DATA_SOURCE
+ */
+public final class ArrayGridDataSource implements GridDataSource {
+
+  private final String[][] rows;
+
+  /**
+   * Creates a data source with the given rows. The rows are copied, later
+   * changes to the arrays do not affect the data source.
+   *
+   * @param rows the texts of the rows, each array holds the texts of a row
+   *          indexed by column
+   * @exception IllegalArgumentException
+   *              <ul>
+   *              <li>ERROR_NULL_ARGUMENT - if the rows or one of the rows is
+   *              null</li>
+   *              </ul>
+   */
+  public ArrayGridDataSource( String[][] rows ) {
+    if( rows == null ) {
+      SWT.error( SWT.ERROR_NULL_ARGUMENT );
+    }
+    this.rows = new String[ rows.length ][];
+    for( int i = 0; i < rows.length; i++ ) {
+      if( rows[ i ] == null ) {
+        SWT.error( SWT.ERROR_NULL_ARGUMENT );
+      }
+      this.rows[ i ] = rows[ i ].clone();
+    }
+  }
+
+  public int getRowCount() {
+    return rows.length;
+  }
+
+  public String getText( int row, int column ) {
+    String[] texts = rows[ row ];
+    return column < texts.length ? texts[ column ] : null;
+  }
+
+}
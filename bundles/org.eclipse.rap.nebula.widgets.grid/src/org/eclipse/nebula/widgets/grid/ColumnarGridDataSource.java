@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.SWT;
+
+
+/**
+ * An immutable <code>GridDataSource</code> for very large grids that stores
+ * the cell texts column by column as UTF-8 encoded bytes.
+ * <p>
+ * Each column is split into segments of a fixed number of rows. A segment
+ * holds the bytes of all its texts in one buffer and the start offset of every
+ * text in a second buffer. When created with <code>direct</code> buffers, the
+ * texts are kept outside of the Java heap and do not add to the work of the
+ * garbage collector. A text is decoded only when it is requested, i.e. when
+ * its row is rendered or measured.
+ * </p>
+ * <p>
+ * Segments of columns with few distinct values, like status or currency
+ * codes, are dictionary encoded: they hold a table of the distinct texts and a
+ * two byte code per row. Texts of such segments are not decoded at all, all
+ * rows with the same value return the same string instance.
+ * </p>
+ * <p>
+ * Instances are created with a <code>Builder</code>. Like all data sources,
+ * they can be shared by the grids of all UI sessions.
+ * </p>
+ *
+ * @see Grid#DATA_SOURCE
+ */
+public final class ColumnarGridDataSource implements GridDataSource {
+
+  private static final String ENCODING = "UTF-8";
+  private static final int SEGMENT_SIZE = 65536;
+  private static final int MAX_DICTIONARY_SIZE = 4096;
+  private static final short NO_CODE = -1;
+
+  private final int rowCount;
+  private final Segment[][] segments;
+
+  private ColumnarGridDataSource( int rowCount, Segment[][] segments ) {
+    this.rowCount = rowCount;
+    this.segments = segments;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public String getText( int row, int column ) {
+    String result = null;
+    if( column < segments.length ) {
+      result = segments[ column ][ row / SEGMENT_SIZE ].getText( row % SEGMENT_SIZE );
+    }
+    return result;
+  }
+
+  /**
+   * Collects the rows of a <code>ColumnarGridDataSource</code>. The texts are
+   * encoded when a row is added, completed segments are moved to their final
+   * buffers, so that the builder holds at most one segment per column. As long
+   * as the current segment of a column is dictionary encoded, only the codes of
+   * its texts are stored.
+   */
+  public static final class Builder {
+
+    private final int columnCount;
+    private final boolean direct;
+    private final List<List<Segment>> segments;
+    private final ByteArrayOutputStream[] bytes;
+    private final int[][] offsets;
+    private final List<Map<String, Integer>> dictionaries;
+    private final short[][] codes;
+    private int rowCount;
+    private int segmentRowCount;
+    private boolean built;
+
+    /**
+     * Creates a builder for a data source with the given number of columns.
+     *
+     * @param columnCount the number of columns
+     * @param direct whether the texts are stored in direct buffers outside of
+     *          the Java heap
+     * @exception IllegalArgumentException
+     *              <ul>
+     *              <li>ERROR_INVALID_ARGUMENT - if the column count is
+     *              negative</li>
+     *              </ul>
+     */
+    public Builder( int columnCount, boolean direct ) {
+      if( columnCount < 0 ) {
+        SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+      }
+      this.columnCount = columnCount;
+      this.direct = direct;
+      segments = new ArrayList<List<Segment>>( columnCount );
+      bytes = new ByteArrayOutputStream[ columnCount ];
+      offsets = new int[ columnCount ][ SEGMENT_SIZE + 1 ];
+      dictionaries = new ArrayList<Map<String, Integer>>( columnCount );
+      codes = new short[ columnCount ][ SEGMENT_SIZE ];
+      for( int i = 0; i < columnCount; i++ ) {
+        segments.add( new ArrayList<Segment>() );
+        bytes[ i ] = new ByteArrayOutputStream();
+        dictionaries.add( new LinkedHashMap<String, Integer>() );
+      }
+    }
+
+    /**
+     * Appends a row. Missing and <code>null</code> texts are stored as empty
+     * cells, texts beyond the column count are ignored.
+     *
+     * @param texts the texts of the row, indexed by column
+     * @return this builder
+     * @exception IllegalArgumentException
+     *              <ul>
+     *              <li>ERROR_NULL_ARGUMENT - if the texts are null</li>
+     *              </ul>
+     * @exception IllegalStateException if the data source was already built
+     */
+    public Builder addRow( String[] texts ) {
+      if( texts == null ) {
+        SWT.error( SWT.ERROR_NULL_ARGUMENT );
+      }
+      checkNotBuilt();
+      for( int i = 0; i < columnCount; i++ ) {
+        String text = i < texts.length ? texts[ i ] : null;
+        if( text != null && text.length() == 0 ) {
+          text = null;
+        }
+        if( !addCode( i, text ) ) {
+          addBytes( i, segmentRowCount, text );
+        }
+      }
+      rowCount++;
+      segmentRowCount++;
+      if( segmentRowCount == SEGMENT_SIZE ) {
+        flushSegments();
+      }
+      return this;
+    }
+
+    /**
+     * Creates the data source from the added rows. The builder cannot be used
+     * afterwards.
+     *
+     * @return the data source
+     * @exception IllegalStateException if the data source was already built
+     */
+    public ColumnarGridDataSource build() {
+      checkNotBuilt();
+      if( segmentRowCount > 0 ) {
+        flushSegments();
+      }
+      built = true;
+      Segment[][] result = new Segment[ columnCount ][];
+      for( int i = 0; i < columnCount; i++ ) {
+        List<Segment> columnSegments = segments.get( i );
+        result[ i ] = columnSegments.toArray( new Segment[ columnSegments.size() ] );
+        bytes[ i ] = null;
+      }
+      return new ColumnarGridDataSource( rowCount, result );
+    }
+
+    /*
+     * Collects the distinct texts of the current segment of a column until
+     * there are too many of them. The texts of the previous rows of the segment
+     * are encoded then, and the dictionary is set to null. Returns whether the
+     * text was stored as a code.
+     */
+    private boolean addCode( int column, String text ) {
+      Map<String, Integer> dictionary = dictionaries.get( column );
+      boolean result = false;
+      if( dictionary != null ) {
+        short code = NO_CODE;
+        if( text != null ) {
+          Integer value = dictionary.get( text );
+          if( value == null && dictionary.size() < MAX_DICTIONARY_SIZE ) {
+            value = Integer.valueOf( dictionary.size() );
+            dictionary.put( text, value );
+          }
+          code = value == null ? NO_CODE : value.shortValue();
+        }
+        if( text != null && code == NO_CODE ) {
+          String[] values = dictionary.keySet().toArray( new String[ dictionary.size() ] );
+          for( int i = 0; i < segmentRowCount; i++ ) {
+            short previousCode = codes[ column ][ i ];
+            addBytes( column, i, previousCode == NO_CODE ? null : values[ previousCode ] );
+          }
+          dictionaries.set( column, null );
+        } else {
+          codes[ column ][ segmentRowCount ] = code;
+          result = true;
+        }
+      }
+      return result;
+    }
+
+    private void addBytes( int column, int segmentRow, String text ) {
+      if( text != null ) {
+        byte[] encoded = encode( text );
+        bytes[ column ].write( encoded, 0, encoded.length );
+      }
+      offsets[ column ][ segmentRow + 1 ] = bytes[ column ].size();
+    }
+
+    private void flushSegments() {
+      for( int i = 0; i < columnCount; i++ ) {
+        Map<String, Integer> dictionary = dictionaries.get( i );
+        Segment segment;
+        if( dictionary != null ) {
+          segment = createDictionarySegment( i, dictionary );
+          dictionary.clear();
+        } else {
+          segment = createTextSegment( i );
+          dictionaries.set( i, new LinkedHashMap<String, Integer>() );
+        }
+        segments.get( i ).add( segment );
+        bytes[ i ].reset();
+      }
+      segmentRowCount = 0;
+    }
+
+    private Segment createTextSegment( int column ) {
+      ByteBuffer textBuffer = allocate( bytes[ column ].size() );
+      textBuffer.put( bytes[ column ].toByteArray() );
+      ByteBuffer offsetBuffer = allocate( ( segmentRowCount + 1 ) * 4 );
+      IntBuffer offsetView = offsetBuffer.asIntBuffer();
+      offsetView.put( offsets[ column ], 0, segmentRowCount + 1 );
+      return new TextSegment( textBuffer, offsetView );
+    }
+
+    private Segment createDictionarySegment( int column, Map<String, Integer> dictionary ) {
+      String[] values = dictionary.keySet().toArray( new String[ dictionary.size() ] );
+      ShortBuffer codeBuffer = allocate( segmentRowCount * 2 ).asShortBuffer();
+      codeBuffer.put( codes[ column ], 0, segmentRowCount );
+      return new DictionarySegment( values, codeBuffer );
+    }
+
+    private ByteBuffer allocate( int capacity ) {
+      ByteBuffer result = direct
+                        ? ByteBuffer.allocateDirect( capacity )
+                        : ByteBuffer.allocate( capacity );
+      return result.order( ByteOrder.nativeOrder() );
+    }
+
+    private void checkNotBuilt() {
+      if( built ) {
+        throw new IllegalStateException( "Data source already built" );
+      }
+    }
+  }
+
+  /*
+   * Only absolute reads and reads from duplicates are used on the buffers,
+   * hence a segment can be read by several threads at once.
+   */
+  private static abstract class Segment {
+
+    abstract String getText( int index );
+  }
+
+  private static final class TextSegment extends Segment {
+
+    private final ByteBuffer texts;
+    private final IntBuffer offsets;
+
+    TextSegment( ByteBuffer texts, IntBuffer offsets ) {
+      this.texts = texts;
+      this.offsets = offsets;
+    }
+
+    @Override
+    String getText( int index ) {
+      int start = offsets.get( index );
+      int end = offsets.get( index + 1 );
+      String result = null;
+      if( end > start ) {
+        byte[] encoded = new byte[ end - start ];
+        ByteBuffer buffer = texts.duplicate();
+        buffer.position( start );
+        buffer.get( encoded );
+        result = decode( encoded );
+      }
+      return result;
+    }
+  }
+
+  private static final class DictionarySegment extends Segment {
+
+    private final String[] values;
+    private final ShortBuffer codes;
+
+    DictionarySegment( String[] values, ShortBuffer codes ) {
+      this.values = values;
+      this.codes = codes;
+    }
+
+    @Override
+    String getText( int index ) {
+      short code = codes.get( index );
+      return code == NO_CODE ? null : values[ code ];
+    }
+  }
+
+  private static byte[] encode( String text ) {
+    try {
+      return text.getBytes( ENCODING );
+    } catch( UnsupportedEncodingException exception ) {
+      throw new IllegalStateException( exception );
+    }
+  }
+
+  private static String decode( byte[] encoded ) {
+    try {
+      return new String( encoded, ENCODING );
+    } catch( UnsupportedEncodingException exception ) {
+      throw new IllegalStateException( exception );
+    }
+  }
+
+}
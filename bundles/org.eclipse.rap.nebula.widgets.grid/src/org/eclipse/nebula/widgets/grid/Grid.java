@@ -11,8 +11,14 @@
 package org.eclipse.nebula.widgets.grid;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.nebula.widgets.grid.internal.IScrollBarProxy;
@@ -22,6 +28,8 @@ import org.eclipse.nebula.widgets.grid.internal.gridkit.GridThemeAdapter;
 import org.eclipse.rap.rwt.RWT;
 import org.eclipse.rap.rwt.internal.textsize.TextSizeUtil;
 import org.eclipse.rap.rwt.internal.theme.IThemeAdapter;
+import org.eclipse.rap.rwt.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.service.ServerPushSession;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ControlAdapter;
 import org.eclipse.swt.events.ControlEvent;
@@ -65,8 +73,109 @@ import org.eclipse.swt.widgets.TypedListener;
 @SuppressWarnings("restriction")
 public class Grid extends Canvas {
 
+  /**
+   * Enables progressive rendering of the grid items when set as widget data.
+   * The value must be a non-negative <code>Integer</code>, which is the maximum
+   * number of items that are sent to the client in one response. When set,
+   * the first response only contains the items in the visible area, and the
+   * remaining items are sent in chunks of the given size with subsequent
+   * server push requests. A value of zero or <code>null</code> disables
+   * progressive rendering.
+   *
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String RENDER_CHUNK_SIZE
+    = "org.eclipse.nebula.widgets.grid.renderChunkSize";
+
+  /**
+   * Enables prefetching of items ahead of the visible area in a
+   * <code>SWT.VIRTUAL</code> grid when set as widget data. The value must be a
+   * non-negative <code>Integer</code>, which is the maximum number of items that
+   * are resolved and rendered in addition to the visible items. The prefetched
+   * items are taken in the current scroll direction, and more of them are
+   * prefetched the faster the user scrolls. A value of zero or
+   * <code>null</code> disables prefetching.
+   *
+   * @see #PREFETCH_BYTE_LIMIT
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String PREFETCH_ITEM_COUNT
+    = "org.eclipse.nebula.widgets.grid.prefetchItemCount";
+
+  /**
+   * Limits the amount of prefetched item data per response when set as widget
+   * data. The value must be a non-negative <code>Integer</code>, which is the
+   * estimated number of bytes after which no more items are prefetched. A
+   * value of zero or <code>null</code> means that only
+   * <code>PREFETCH_ITEM_COUNT</code> limits prefetching.
+   *
+   * @see #PREFETCH_ITEM_COUNT
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String PREFETCH_BYTE_LIMIT
+    = "org.eclipse.nebula.widgets.grid.prefetchByteLimit";
+
+  /**
+   * Limits the number of resolved items of a <code>SWT.VIRTUAL</code> grid when
+   * set as widget data. The value must be a non-negative <code>Integer</code>.
+   * When more items are resolved, the least recently viewed ones are cleared
+   * and will fire <code>SWT.SetData</code> again when they are shown. Items
+   * that are visible, selected, focused or edited with a
+   * <code>GridEditor</code> are never cleared. A value of zero or
+   * <code>null</code> removes the limit.
+   *
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String RESOLVED_ITEM_LIMIT
+    = "org.eclipse.nebula.widgets.grid.resolvedItemLimit";
+
+  /**
+   * Attaches a metrics sink to the grid when set as widget data. The value
+   * must be a <code>GridMetricsSink</code>, which is notified about the item
+   * count, the resolved virtual items, the time spent in the life cycle and
+   * the pack measurements of the grid. A value of <code>null</code> detaches
+   * the sink. Without a sink, no metrics are collected.
+   *
+   * @see GridMetricsSink
+   * @see JmxGridMetricsSink
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String METRICS_SINK = "org.eclipse.nebula.widgets.grid.metricsSink";
+
+  /**
+   * Attaches a trace listener to the grid when set as widget data. The value
+   * must be a <code>GridTraceListener</code>, which is notified about the
+   * duration and size of expensive operations like packing, resolving virtual
+   * items, updating the scroll bars and rendering. A value of <code>null</code>
+   * detaches the listener. Without a listener, no operations are traced.
+   *
+   * @see GridTraceListener
+   * @see SlowGridOperationLogger
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String TRACE_LISTENER = "org.eclipse.nebula.widgets.grid.traceListener";
+
+  /**
+   * Attaches a data source to the grid when set as widget data. The value
+   * must be a <code>GridDataSource</code>. The item count of the grid is set
+   * to the row count of the data source and each item is bound to the row at
+   * its index. The items read their texts from their row, unless a text is
+   * set on an item. Items that are created later are not bound to a row. A
+   * value of <code>null</code> detaches the data source.
+   * <p>
+   * The data source saves the cell texts of the items, not the items
+   * themselves: the grid creates an item for every row, like
+   * <code>setItemCount</code> does.
+   * </p>
+   *
+   * @see GridDataSource
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String DATA_SOURCE = "org.eclipse.nebula.widgets.grid.dataSource";
+
   private static final int MIN_ITEM_HEIGHT = 16;
   private static final int GRID_WIDTH = 1;
+  private static final int ESTIMATED_ITEM_OVERHEAD = 100;
 
   private List<GridItem> items = new ArrayList<GridItem>();
   private List<GridItem> rootItems = new ArrayList<GridItem>();
@@ -75,9 +184,11 @@ public class Grid extends Canvas {
   private List<GridColumn> columns = new ArrayList<GridColumn>();
   private List<GridColumn> displayOrderedColumns = new ArrayList<GridColumn>();
   private List<GridColumnGroup> columnGroups = new ArrayList<GridColumnGroup>();
+  private Map<String, GridItem> itemsById = new HashMap<String, GridItem>();
   private GridItem focusItem;
   private boolean isTree;
   private boolean disposing;
+  private Set<GridItem> removedItems;
   private boolean columnHeadersVisible;
   private boolean columnFootersVisible;
   private boolean linesVisible = true;
@@ -98,6 +209,24 @@ public class Grid extends Canvas {
   private boolean bottomIndexShownCompletely;
   private final IGridAdapter gridAdapter;
   private transient CompositeItemHolder itemHolder;
+  private int renderChunkSize;
+  private int unrenderedItemCount;
+  private int renderCursor;
+  private boolean renderChunkScheduled;
+  private transient ServerPushSession serverPushSession;
+  private int prefetchItemCount;
+  private int prefetchByteLimit;
+  private int lastTopIndex;
+  private int scrollDelta;
+  private int resolvedItemLimit;
+  private LinkedHashMap<GridItem, Boolean> resolvedItems;
+  private GridMetricsSink metricsSink;
+  private GridTraceListener traceListener;
+  private GridDataSource dataSource;
+  private List<GridItem> editedItems = new ArrayList<GridItem>();
+  private Set<GridItem> itemsToPack = new LinkedHashSet<GridItem>();
+  private List<GridItem> appendedItems;
+  private int appendIndex;
   boolean hasDifferingHeights;
   boolean markupEnabled;
   boolean markupValidationDisabled;
@@ -142,14 +271,22 @@ public class Grid extends Canvas {
     }
     gridAdapter = new GridAdapter();
     layoutCache = new LayoutCache();
+    if( ( getStyle() & SWT.VIRTUAL ) != 0 ) {
+      resolvedItems = new LinkedHashMap<GridItem, Boolean>( 16, 0.75f, true );
+    }
     setScrollValuesObsolete();
     initListeners();
   }
 
   @Override
   public void dispose() {
+    if( !isDisposed() ) {
+      // items skip removeItem() while the grid is disposing
+      addMetric( GridMetricsSink.ITEMS_DISPOSED, items.size() );
+    }
     disposing = true;
     removeControlListener( resizeListener );
+    stopServerPush();
     super.dispose();
     for( Iterator<GridItem> iterator = items.iterator(); iterator.hasNext(); ) {
       GridItem item = iterator.next();
@@ -462,7 +599,7 @@ public class Grid extends Canvas {
     }
     int result = -1;
     if( item.getParent() == this ) {
-      result = items.indexOf( item );
+      result = internalIndexOf( item );
     }
     return result;
   }
@@ -1055,6 +1192,47 @@ public class Grid extends Canvas {
     }
   }
 
+  /**
+   * Sets the texts of a column for a range of consecutive items, starting
+   * at the given zero-relative index. The texts are applied at once, which is
+   * more efficient than setting the text of each item separately.
+   *
+   * @param index the column index
+   * @param start the zero-relative index of the first item
+   * @param texts the texts of the items
+   *
+   * @exception IllegalArgumentException <ul>
+   *    <li>ERROR_NULL_ARGUMENT - if the texts array or one of its elements is null</li>
+   *    <li>ERROR_INVALID_RANGE - if the items are not between 0 and the number of elements in the list minus 1 (inclusive)</li>
+   * </ul>
+   * @exception org.eclipse.swt.SWTException <ul>
+   *    <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+   *    <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that created the receiver</li>
+   * </ul>
+   *
+   * @see GridItem#setText(int, String)
+   */
+  public void setTexts( int index, int start, String[] texts ) {
+    checkWidget();
+    if( texts == null ) {
+      SWT.error( SWT.ERROR_NULL_ARGUMENT );
+    }
+    if( start < 0 || start + texts.length > items.size() ) {
+      SWT.error( SWT.ERROR_INVALID_RANGE );
+    }
+    for( int i = 0; i < texts.length; i++ ) {
+      if( texts[ i ] == null ) {
+        SWT.error( SWT.ERROR_NULL_ARGUMENT );
+      }
+    }
+    if( texts.length > 0 ) {
+      for( int i = 0; i < texts.length; i++ ) {
+        items.get( start + i ).internalSetText( index, texts[ i ] );
+      }
+      redraw();
+    }
+  }
+
   /**
    * Enables selection highlighting if the argument is <code>true</code>.
    *
@@ -1449,13 +1627,16 @@ public class Grid extends Canvas {
     }
     if( selectionEnabled && !( selectionType == SWT.SINGLE && items.length > 1 ) ) {
       internalDeselectAll();
+      Set<GridItem> selected = new HashSet<GridItem>();
       for( int i = 0; i < items.length; i++ ) {
         GridItem item = items[ i ];
         if( item != null ) {
           if( item.isDisposed() ) {
             SWT.error( SWT.ERROR_INVALID_ARGUMENT );
           }
-          internalSelect( indexOf( item ) );
+          if( item.getParent() == this && selected.add( item ) && !cellSelectionEnabled ) {
+            selectedItems.add( item );
+          }
         }
       }
       redraw();
@@ -1789,9 +1970,74 @@ public class Grid extends Canvas {
     while( items.size() > 0 ) {
       items.get( 0 ).dispose();
     }
+    for( int i = 0; i < columns.size(); i++ ) {
+      columns.get( i ).clearTextDictionary();
+    }
     redraw();
   }
 
+  /**
+   * Removes the given items and all their descendants from the receiver. The
+   * items are removed at once, which is more efficient than disposing them one
+   * by one.
+   *
+   * @param items the items to remove
+   * @throws IllegalArgumentException
+   * <ul>
+   * <li>ERROR_NULL_ARGUMENT - if the items array or one of its elements is null</li>
+   * <li>ERROR_INVALID_ARGUMENT - if one of the items is disposed or does not
+   * belong to the receiver</li>
+   * </ul>
+   * @throws org.eclipse.swt.SWTException
+   * <ul>
+   * <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed</li>
+   * <li>ERROR_THREAD_INVALID_ACCESS - if not called from the thread that
+   * created the receiver</li>
+   * </ul>
+   */
+  public void removeItems( GridItem[] items ) {
+    checkWidget();
+    if( items == null ) {
+      SWT.error( SWT.ERROR_NULL_ARGUMENT );
+    }
+    Set<GridItem> removed = new HashSet<GridItem>();
+    for( int i = 0; i < items.length; i++ ) {
+      if( items[ i ] == null ) {
+        SWT.error( SWT.ERROR_NULL_ARGUMENT );
+      }
+      if( items[ i ].isDisposed() || items[ i ].getParent() != this ) {
+        SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+      }
+      addItemAndDescendants( removed, items[ i ] );
+    }
+    if( !removed.isEmpty() ) {
+      filterItems( this.items, removed );
+      filterItems( rootItems, removed );
+      filterItems( selectedItems, removed );
+      Set<GridItem> parentItems = new HashSet<GridItem>();
+      for( GridItem item : removed ) {
+        GridItem parentItem = item.getParentItem();
+        if( parentItem != null && !removed.contains( parentItem ) ) {
+          parentItems.add( parentItem );
+        }
+      }
+      for( GridItem parentItem : parentItems ) {
+        parentItem.removeChildren( removed );
+      }
+      removedItems = removed;
+      try {
+        for( int i = 0; i < items.length; i++ ) {
+          if( !items[ i ].isDisposed() ) {
+            items[ i ].dispose();
+          }
+        }
+      } finally {
+        removedItems = null;
+      }
+      redraw();
+    }
+  }
+
   /**
    * Marks the receiver's header as visible if the argument is {@code true},
    * and marks it invisible otherwise.
@@ -2068,6 +2314,7 @@ public class Grid extends Canvas {
   public void setFont( Font font ) {
     super.setFont( font );
     layoutCache.invalidateItemHeight();
+    invalidatePreferredHeights();
     setScrollValuesObsolete();
   }
 
@@ -2284,6 +2531,20 @@ public class Grid extends Canvas {
       markupEnabled = Boolean.TRUE.equals( value );
     } else if( MarkupValidator.MARKUP_VALIDATION_DISABLED.equals( key ) ) {
       markupValidationDisabled = Boolean.TRUE.equals( value );
+    } else if( RENDER_CHUNK_SIZE.equals( key ) ) {
+      setRenderChunkSize( value );
+    } else if( PREFETCH_ITEM_COUNT.equals( key ) ) {
+      prefetchItemCount = getNonNegativeInt( value );
+    } else if( PREFETCH_BYTE_LIMIT.equals( key ) ) {
+      prefetchByteLimit = getNonNegativeInt( value );
+    } else if( RESOLVED_ITEM_LIMIT.equals( key ) ) {
+      setResolvedItemLimit( value );
+    } else if( METRICS_SINK.equals( key ) ) {
+      setMetricsSink( value );
+    } else if( TRACE_LISTENER.equals( key ) ) {
+      setTraceListener( value );
+    } else if( DATA_SOURCE.equals( key ) ) {
+      setDataSource( value );
     }
     super.setData( key, value );
   }
@@ -2297,40 +2558,88 @@ public class Grid extends Canvas {
     int flatIndex = index;
     // Have to convert indexes, this method needs a flat index, the method is called with indexes
     // that are relative to the level
-    if( root && index != -1 ) {
+    if( appendedItems != null ) {
+      flatIndex = appendIndex + appendedItems.size();
+    } else if( root && index != -1 ) {
       if( index >= rootItems.size() ) {
         flatIndex = -1;
       } else {
         flatIndex = items.indexOf( rootItems.get( index ) );
       }
     } else if( !root ) {
-      if( index >= parentItem.getItems().length || index == -1 ) {
-        GridItem rightMostDescendent = parentItem;
-        while( rightMostDescendent.getItems().length > 0 ) {
-          GridItem[] rightMostDescendentItems = rightMostDescendent.getItems();
-          rightMostDescendent = rightMostDescendentItems[ rightMostDescendentItems.length - 1 ];
-        }
-        flatIndex = indexOf( rightMostDescendent ) + 1;
+      if( index >= parentItem.getItemCount() || index == -1 ) {
+        flatIndex = indexOf( getRightMostDescendent( parentItem ) ) + 1;
       } else {
-        flatIndex = indexOf( parentItem.getItems()[ index ] );
+        flatIndex = indexOf( parentItem.getItem( index ) );
       }
     }
-    if( flatIndex == -1 ) {
+    if( appendedItems != null ) {
+      appendedItems.add( item );
+      row = flatIndex;
+    } else if( flatIndex == -1 ) {
       items.add( item );
       row = items.size() - 1;
     } else {
       items.add( flatIndex, item );
       row = flatIndex;
     }
+    item.indexHint = row;
+    itemsById.put( WidgetUtil.getId( item ), item );
+    addMetric( GridMetricsSink.ITEMS_CREATED, 1 );
+    if( renderChunkSize > 0 ) {
+      unrenderedItemCount++;
+    } else {
+      item.rendered = true;
+    }
     invalidateTopBottomIndex();
     updateVisibleItems( 1 );
     return row;
   }
 
+  /*
+   * Collects the items that are created for the given parent item and adds
+   * them to the flat item list at once in endAppendItems.
+   */
+  void beginAppendItems( GridItem parentItem ) {
+    appendIndex = indexOf( getRightMostDescendent( parentItem ) ) + 1;
+    appendedItems = new ArrayList<GridItem>();
+  }
+
+  void endAppendItems() {
+    items.addAll( appendIndex, appendedItems );
+    appendedItems = null;
+  }
+
+  private static GridItem getRightMostDescendent( GridItem item ) {
+    GridItem result = item;
+    int itemCount = result.getItemCount();
+    while( itemCount > 0 ) {
+      result = result.getItem( itemCount - 1 );
+      itemCount = result.getItemCount();
+    }
+    return result;
+  }
+
   void removeItem( GridItem item ) {
-    items.remove( item );
+    if( removedItems == null ) {
+      int index = internalIndexOf( item );
+      if( index != -1 ) {
+        items.remove( index );
+      }
+    }
+    itemsById.remove( WidgetUtil.getId( item ) );
+    addMetric( GridMetricsSink.ITEMS_DISPOSED, 1 );
+    if( !item.rendered ) {
+      unrenderedItemCount--;
+    }
+    if( resolvedItems != null ) {
+      resolvedItems.remove( item );
+    }
+    itemsToPack.remove( item );
     if( !disposing ) {
-      selectedItems.remove (item );
+      if( removedItems == null ) {
+        selectedItems.remove( item );
+      }
 // TODO: [if] Implement cell selection
 //      Point[] cells = getCells( item );
 //      for( int i = 0; i < cells.length; i++ ) {
@@ -2350,13 +2659,47 @@ public class Grid extends Canvas {
   void newRootItem( GridItem item, int index ) {
     if( index == -1 || index >= rootItems.size() ) {
       rootItems.add( item );
+      item.levelIndexHint = rootItems.size() - 1;
     } else {
       rootItems.add( index, item );
+      item.levelIndexHint = index;
+    }
+  }
+
+  boolean isRemovingItems() {
+    return removedItems != null;
+  }
+
+  static void filterItems( List<GridItem> items, Set<GridItem> removed ) {
+    int count = 0;
+    for( int i = 0; i < items.size(); i++ ) {
+      GridItem item = items.get( i );
+      if( !removed.contains( item ) ) {
+        items.set( count, item );
+        count++;
+      }
+    }
+    if( count < items.size() ) {
+      items.subList( count, items.size() ).clear();
+    }
+  }
+
+  private static void addItemAndDescendants( Set<GridItem> items, GridItem item ) {
+    if( items.add( item ) ) {
+      int itemCount = item.getItemCount();
+      for( int i = 0; i < itemCount; i++ ) {
+        addItemAndDescendants( items, item.getItem( i ) );
+      }
     }
   }
 
   void removeRootItem( GridItem item ) {
-    rootItems.remove( item );
+    int lastIndex = rootItems.size() - 1;
+    if( lastIndex >= 0 && rootItems.get( lastIndex ) == item ) {
+      rootItems.remove( lastIndex );
+    } else {
+      rootItems.remove( item );
+    }
   }
 
   int newColumn( GridColumn column, int index ) {
@@ -2442,7 +2785,10 @@ public class Grid extends Canvas {
   }
 
   int getMaxContentWidth( GridColumn column ) {
-    return getMaxInnerWidth( getRootItems(), indexOf( column ) );
+    long start = startTrace();
+    int result = getMaxInnerWidth( getRootItems(), indexOf( column ) );
+    endTrace( GridTraceEvent.PACK_COLUMN, start, currentVisibleItems, 1 );
+    return result;
   }
 
   int getBottomIndex() {
@@ -2516,9 +2862,44 @@ public class Grid extends Canvas {
   }
 
   private void doRedraw() {
+    packItems();
     updateScrollBars();
   }
 
+  void packItem( GridItem item ) {
+    itemsToPack.add( item );
+    redraw();
+  }
+
+  private void packItems() {
+    if( !itemsToPack.isEmpty() ) {
+      long start = startTrace();
+      int packedItems = itemsToPack.size();
+      boolean heightChanged = false;
+      for( GridItem item : itemsToPack ) {
+        if( !item.isDisposed() && item.isPacked() ) {
+          heightChanged |= item.updatePreferredHeight();
+        }
+      }
+      itemsToPack.clear();
+      if( heightChanged ) {
+        hasDifferingHeights = true;
+        invalidateTopBottomIndex();
+        scrollValuesObsolete = true;
+      }
+      endTrace( GridTraceEvent.PACK_ITEMS, start, packedItems, columns.size() );
+    }
+  }
+
+  private void invalidatePreferredHeights() {
+    for( int i = 0; i < items.size(); i++ ) {
+      GridItem item = items.get( i );
+      if( item.isPacked() ) {
+        item.invalidatePreferredHeight();
+      }
+    }
+  }
+
   void setScrollValuesObsolete() {
     scrollValuesObsolete = true;
     redraw();
@@ -2526,6 +2907,7 @@ public class Grid extends Canvas {
 
   void updateScrollBars() {
     if( scrollValuesObsolete ) {
+      long start = startTrace();
       Point preferredSize = getTableSize();
       Rectangle clientArea = getClientArea();
       for( int doublePass = 1; doublePass <= 2; doublePass++ ) {
@@ -2562,6 +2944,7 @@ public class Grid extends Canvas {
         hScroll.setValues( selection, 0, preferredSize.x, clientArea.width, 5, clientArea.width );
       }
       scrollValuesObsolete = false;
+      endTrace( GridTraceEvent.UPDATE_SCROLL_BARS, start, currentVisibleItems, columns.size() );
     }
   }
 
@@ -2681,7 +3064,16 @@ public class Grid extends Canvas {
   }
 
   private int computeItemHeight() {
-    int result = Math.max( getItemImageSize().y, TextSizeUtil.getCharHeight( getFont() ) );
+    return computeItemHeight( TextSizeUtil.getCharHeight( getFont() ) );
+  }
+
+  int computeItemHeight( GridItem item ) {
+    addMetric( GridMetricsSink.PACK_MEASUREMENTS, 1 );
+    return computeItemHeight( item.getContentHeight() );
+  }
+
+  private int computeItemHeight( int contentHeight ) {
+    int result = Math.max( getItemImageSize().y, contentHeight );
     if( hasCheckBoxes() ) {
       result = Math.max( getCheckBoxImageOuterSize().y, result );
     }
@@ -2757,17 +3149,360 @@ public class Grid extends Canvas {
     }
   }
 
+  /*
+   * Items remember the flat index they were last found at. As long as no item
+   * is inserted or removed before them, the index is found without a search.
+   */
+  private int internalIndexOf( GridItem item ) {
+    int result = item.indexHint;
+    if( result < 0 || result >= items.size() || items.get( result ) != item ) {
+      int lastIndex = items.size() - 1;
+      if( lastIndex >= 0 && items.get( lastIndex ) == item ) {
+        result = lastIndex;
+      } else {
+        result = items.indexOf( item );
+      }
+      item.indexHint = result;
+    }
+    return result;
+  }
+
   private int getItemIndex( GridItem item ) {
     int result = -1;
     GridItem parentItem = item.getParentItem();
     if( parentItem == null ) {
-      result = rootItems.indexOf( item );
+      result = item.levelIndexHint;
+      if( result < 0 || result >= rootItems.size() || rootItems.get( result ) != item ) {
+        result = rootItems.indexOf( item );
+        item.levelIndexHint = result;
+      }
     } else {
       result = parentItem.indexOf( item );
     }
     return result;
   }
 
+  private static int getNonNegativeInt( Object value ) {
+    int result = 0;
+    if( value != null ) {
+      if( !( value instanceof Integer ) || ( ( Integer )value ).intValue() < 0 ) {
+        SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+      }
+      result = ( ( Integer )value ).intValue();
+    }
+    return result;
+  }
+
+  private void setRenderChunkSize( Object value ) {
+    renderChunkSize = getNonNegativeInt( value );
+    if( renderChunkSize == 0 ) {
+      for( int i = 0; i < items.size() && unrenderedItemCount > 0; i++ ) {
+        markRendered( items.get( i ) );
+      }
+      stopServerPush();
+    }
+  }
+
+  private GridItem[] getRenderedItems() {
+    GridItem[] result;
+    if( unrenderedItemCount == 0 ) {
+      result = items.toArray( new GridItem[ items.size() ] );
+    } else {
+      result = new GridItem[ items.size() - unrenderedItemCount ];
+      int index = 0;
+      for( int i = 0; i < items.size(); i++ ) {
+        GridItem item = items.get( i );
+        if( item.rendered ) {
+          result[ index++ ] = item;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void checkData() {
+    boolean virtual = ( getStyle() & SWT.VIRTUAL ) != 0;
+    if( unrenderedItemCount > 0 || virtual ) {
+      int topIndex = getTopIndex();
+      int bottomIndex = Math.min( getBottomIndex(), items.size() - 1 );
+      int viewedCount = 0;
+      for( int index = topIndex; index <= bottomIndex; index++ ) {
+        GridItem item = items.get( index );
+        item.indexHint = index;
+        if( item.isVisible() ) {
+          checkData( item );
+          viewedCount++;
+        }
+      }
+      updateScrollDelta( topIndex );
+      if( prefetchItemCount > 0 ) {
+        viewedCount += prefetchItems( topIndex, bottomIndex );
+      }
+      evictResolvedItems( viewedCount );
+      for( int i = 0; i < selectedItems.size(); i++ ) {
+        markRendered( selectedItems.get( i ) );
+      }
+      if( focusItem != null ) {
+        markRendered( focusItem );
+      }
+    }
+    if( unrenderedItemCount > 0 ) {
+      scheduleRenderChunk();
+    } else {
+      stopServerPush();
+    }
+  }
+
+  private void checkData( GridItem item ) {
+    markRendered( item );
+    item.handleVirtual();
+    if( resolvedItems != null ) {
+      // mark as recently viewed
+      resolvedItems.get( item );
+    }
+  }
+
+  private void updateScrollDelta( int topIndex ) {
+    scrollDelta = topIndex - lastTopIndex;
+    lastTopIndex = topIndex;
+  }
+
+  private int prefetchItems( int topIndex, int bottomIndex ) {
+    int visibleCount = bottomIndex - topIndex + 1;
+    int maxCount = Math.min( prefetchItemCount, visibleCount + 2 * Math.abs( scrollDelta ) );
+    int step = scrollDelta < 0 ? -1 : 1;
+    int index = scrollDelta < 0 ? topIndex - 1 : bottomIndex + 1;
+    int count = 0;
+    int bytes = 0;
+    while(    index >= 0
+           && index < items.size()
+           && count < maxCount
+           && ( prefetchByteLimit == 0 || bytes < prefetchByteLimit ) )
+    {
+      GridItem item = items.get( index );
+      item.indexHint = index;
+      if( item.isVisible() ) {
+        boolean fetched = !item.isResolved() || !item.rendered;
+        checkData( item );
+        if( fetched ) {
+          bytes += getEstimatedSize( item );
+        }
+        count++;
+      }
+      index += step;
+    }
+    return count;
+  }
+
+  private void setResolvedItemLimit( Object value ) {
+    resolvedItemLimit = getNonNegativeInt( value );
+    if( resolvedItemLimit == 0 ) {
+      if( ( getStyle() & SWT.VIRTUAL ) == 0 ) {
+        resolvedItems = null;
+      }
+    } else if( resolvedItems == null ) {
+      resolvedItems = new LinkedHashMap<GridItem, Boolean>( 16, 0.75f, true );
+      for( int i = 0; i < items.size(); i++ ) {
+        GridItem item = items.get( i );
+        if( item.isResolved() ) {
+          resolvedItems.put( item, Boolean.TRUE );
+        }
+      }
+    }
+  }
+
+  void itemResolved( GridItem item ) {
+    if( resolvedItems != null ) {
+      resolvedItems.put( item, Boolean.TRUE );
+    }
+  }
+
+  void editedItemChanged( GridItem oldItem, GridItem newItem ) {
+    if( oldItem != null ) {
+      editedItems.remove( oldItem );
+    }
+    if( newItem != null ) {
+      editedItems.add( newItem );
+    }
+  }
+
+  private void evictResolvedItems( int viewedCount ) {
+    if(    resolvedItemLimit > 0
+        && resolvedItems != null
+        && resolvedItems.size() > resolvedItemLimit )
+    {
+      int excess = resolvedItems.size() - resolvedItemLimit;
+      // the viewed items are the most recently accessed ones at the end of the map
+      int candidates = resolvedItems.size() - viewedCount;
+      Iterator<GridItem> iterator = resolvedItems.keySet().iterator();
+      while( excess > 0 && candidates > 0 && iterator.hasNext() ) {
+        GridItem item = iterator.next();
+        candidates--;
+        if( !isPinned( item ) ) {
+          iterator.remove();
+          item.clear( false );
+          excess--;
+        }
+      }
+    }
+  }
+
+  /*
+   * Clears the items of a virtual grid that were resolved by a SetData event,
+   * without touching the other items. Unlike clearAll, the cell tool tips are
+   * left enabled.
+   */
+  private void clearResolvedItems() {
+    if( resolvedItems == null ) {
+      for( int i = 0; i < items.size(); i++ ) {
+        items.get( i ).clear( false );
+      }
+    } else {
+      GridItem[] resolved = resolvedItems.keySet().toArray( new GridItem[ resolvedItems.size() ] );
+      resolvedItems.clear();
+      for( int i = 0; i < resolved.length; i++ ) {
+        resolved[ i ].clear( false );
+      }
+    }
+    itemImageSize = null;
+    layoutCache.invalidateItemHeight();
+    redraw();
+  }
+
+  private void setMetricsSink( Object value ) {
+    if( value != null && !( value instanceof GridMetricsSink ) ) {
+      SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+    }
+    if( metricsSink != null ) {
+      metricsSink.add( this, GridMetricsSink.ITEMS_DISPOSED, items.size() );
+    }
+    metricsSink = ( GridMetricsSink )value;
+    if( metricsSink != null ) {
+      metricsSink.add( this, GridMetricsSink.ITEMS_CREATED, items.size() );
+    }
+  }
+
+  GridMetricsSink getMetricsSink() {
+    return metricsSink;
+  }
+
+  private void setDataSource( Object value ) {
+    if( value != null && !( value instanceof GridDataSource ) ) {
+      SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+    }
+    dataSource = ( GridDataSource )value;
+    if( dataSource != null ) {
+      setItemCount( dataSource.getRowCount() );
+      for( int i = 0; i < items.size(); i++ ) {
+        items.get( i ).sourceRow = i;
+      }
+    }
+    invalidatePreferredHeights();
+    repackColumns();
+    redraw();
+  }
+
+  String getSourceText( GridItem item, int column ) {
+    String result = null;
+    if( dataSource != null ) {
+      int row = item.sourceRow;
+      if( row >= 0 && row < dataSource.getRowCount() ) {
+        result = dataSource.getText( row, column );
+      }
+    }
+    return result == null ? "" : result;
+  }
+
+  private void setTraceListener( Object value ) {
+    if( value != null && !( value instanceof GridTraceListener ) ) {
+      SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+    }
+    traceListener = ( GridTraceListener )value;
+  }
+
+  GridTraceListener getTraceListener() {
+    return traceListener;
+  }
+
+  long startTrace() {
+    return traceListener == null ? 0 : System.nanoTime();
+  }
+
+  void endTrace( String operation, long start, int rowCount, int columnCount ) {
+    if( traceListener != null && start != 0 ) {
+      long duration = System.nanoTime() - start;
+      GridTraceEvent event = new GridTraceEvent( this, operation, duration, rowCount, columnCount );
+      traceListener.operationTraced( event );
+    }
+  }
+
+  void addMetric( String metric, long value ) {
+    if( metricsSink != null ) {
+      metricsSink.add( this, metric, value );
+    }
+  }
+
+  private boolean isPinned( GridItem item ) {
+    return item == focusItem || selectedItems.contains( item ) || editedItems.contains( item );
+  }
+
+  private int getEstimatedSize( GridItem item ) {
+    int result = ESTIMATED_ITEM_OVERHEAD;
+    int columnCount = Math.max( 1, columns.size() );
+    for( int i = 0; i < columnCount; i++ ) {
+      result += item.getText( i ).length();
+    }
+    return result;
+  }
+
+  private void markRendered( GridItem item ) {
+    if( !item.rendered ) {
+      GridItem parentItem = item.getParentItem();
+      if( parentItem != null ) {
+        markRendered( parentItem );
+      }
+      item.rendered = true;
+      unrenderedItemCount--;
+    }
+  }
+
+  private void renderNextChunk() {
+    int count = 0;
+    while( count < renderChunkSize && unrenderedItemCount > 0 ) {
+      if( renderCursor >= items.size() ) {
+        // items may have been inserted or removed behind the cursor, start over
+        renderCursor = 0;
+      }
+      GridItem item = items.get( renderCursor++ );
+      if( !item.rendered ) {
+        markRendered( item );
+        count++;
+      }
+    }
+  }
+
+  private void scheduleRenderChunk() {
+    if( !renderChunkScheduled ) {
+      renderChunkScheduled = true;
+      if( serverPushSession == null ) {
+        serverPushSession = new ServerPushSession();
+      }
+      serverPushSession.start();
+      getDisplay().asyncExec( new RenderChunkRunnable() );
+    }
+  }
+
+  private void stopServerPush() {
+    if( serverPushSession != null ) {
+      serverPushSession.stop();
+      serverPushSession = null;
+    }
+  }
+
+  private GridItem getItem( String itemId ) {
+    return itemId == null ? null : itemsById.get( itemId );
+  }
+
   private int getColumnHeaderXPosition( GridColumn column ) {
     int result = -1;
     if( column.isVisible() ) {
@@ -2863,7 +3598,7 @@ public class Grid extends Canvas {
   }
 
   boolean hasColumnTexts( int index ) {
-    return getColumn( index ).textCount > 0;
+    return dataSource != null || getColumn( index ).textCount > 0;
   }
 
   private boolean hasCheckBoxes() {
@@ -2964,6 +3699,18 @@ public class Grid extends Canvas {
                                 int availableHeight,
                                 boolean forceEndCompletelyInside,
                                 boolean inverse )
+  {
+    long traceStart = startTrace();
+    RowRange result = computeRowRange( start, availableHeight, forceEndCompletelyInside, inverse );
+    int rows = result == null ? 0 : result.rows;
+    endTrace( GridTraceEvent.GET_ROW_RANGE, traceStart, rows, 0 );
+    return result;
+  }
+
+  private RowRange computeRowRange( int start,
+                                    int availableHeight,
+                                    boolean forceEndCompletelyInside,
+                                    boolean inverse )
   {
     RowRange result = new RowRange();
     int startIndex = start;
@@ -3065,7 +3812,7 @@ public class Grid extends Canvas {
     }
 
     public Item[] getItems() {
-      GridItem[] items = Grid.this.getItems();
+      GridItem[] items = getRenderedItems();
       GridColumn[] columns = getColumns();
       GridColumnGroup[] groups = getColumnGroups();
       Item[] result = new Item[ columns.length + items.length + groups.length ];
@@ -3149,6 +3896,14 @@ public class Grid extends Canvas {
       return Grid.this.getItemIndex( item );
     }
 
+    public GridItem getItem( String itemId ) {
+      return Grid.this.getItem( itemId );
+    }
+
+    public void checkData() {
+      Grid.this.checkData();
+    }
+
     public ICellToolTipProvider getCellToolTipProvider() {
       return provider;
     }
@@ -3168,6 +3923,27 @@ public class Grid extends Canvas {
     public void doRedraw() {
       Grid.this.doRedraw();
     }
+
+    public GridMetricsSink getMetricsSink() {
+      return metricsSink;
+    }
+
+    public GridTraceListener getTraceListener() {
+      return traceListener;
+    }
+
+    public void clearResolvedItems() {
+      Grid.this.clearResolvedItems();
+    }
+  }
+
+  private final class RenderChunkRunnable implements Runnable, SerializableCompatibility {
+    public void run() {
+      renderChunkScheduled = false;
+      if( !isDisposed() ) {
+        renderNextChunk();
+      }
+    }
   }
 
   private final class CellToolTipProvider
@@ -10,6 +10,7 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.grid;
 
+import org.eclipse.nebula.widgets.grid.internal.TextDictionary;
 import org.eclipse.rap.rwt.internal.textsize.TextSizeUtil;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ControlListener;
@@ -39,6 +40,28 @@ import org.eclipse.swt.widgets.TypedListener;
 @SuppressWarnings( "restriction" )
 public class GridColumn extends Item {
 
+  /**
+   * Enables the dictionary encoding of the cell texts of the column when set
+   * as widget data to <code>Boolean.TRUE</code>. All items share a single
+   * instance of equal texts then, which saves memory for columns with few
+   * distinct values like status or currency codes. The dictionary keeps up to
+   * 4096 distinct texts that were set, further texts are not shared. It is
+   * emptied when all items are removed from the grid and dropped when the
+   * column is disposed. A value of <code>null</code> or
+   * <code>Boolean.FALSE</code> disables the encoding for texts that are set
+   * afterwards.
+   * <p>
+   * The encoding applies to the texts held on the server only. Items are
+   * still rendered with their plain texts, sending the dictionary once and
+   * codes per item requires support by the client widget of RWT and is not
+   * part of the protocol yet.
+   * </p>
+   *
+   * @see org.eclipse.swt.widgets.Widget#setData(String, Object)
+   */
+  public static final String DICTIONARY_ENCODING
+    = "org.eclipse.nebula.widgets.grid.dictionaryEncoding";
+
   private static final int SORT_INDICATOR_WIDTH = 10;
   private static final int MARGIN_IMAGE = 3;
   private static final int DEFAULT_WIDTH = 10;
@@ -65,6 +88,7 @@ public class GridColumn extends Item {
   private boolean packed;
   int imageCount;
   int textCount;
+  private TextDictionary textDictionary;
 
   /**
    * Constructs a new instance of this class given its parent (which must be a
@@ -155,6 +179,14 @@ public class GridColumn extends Item {
     group.newColumn( this );
   }
 
+  @Override
+  public void setData( String key, Object value ) {
+    if( DICTIONARY_ENCODING.equals( key ) ) {
+      setDictionaryEncoding( value );
+    }
+    super.setData( key, value );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -166,6 +198,7 @@ public class GridColumn extends Item {
         group.removeColumn( this );
       }
     }
+    textDictionary = null;
     super.dispose();
   }
 
@@ -1003,6 +1036,38 @@ public class GridColumn extends Item {
     parent.redraw();
   }
 
+  private void setDictionaryEncoding( Object value ) {
+    if( value != null && !( value instanceof Boolean ) ) {
+      SWT.error( SWT.ERROR_INVALID_ARGUMENT );
+    }
+    if( Boolean.TRUE.equals( value ) ) {
+      if( textDictionary == null ) {
+        textDictionary = new TextDictionary();
+        int index = parent.indexOf( this );
+        GridItem[] items = parent.getItems();
+        for( int i = 0; i < items.length; i++ ) {
+          items[ i ].encodeText( index );
+        }
+      }
+    } else {
+      textDictionary = null;
+    }
+  }
+
+  String encodeText( String text ) {
+    return textDictionary == null ? text : textDictionary.getText( text );
+  }
+
+  void clearTextDictionary() {
+    if( textDictionary != null ) {
+      textDictionary.clear();
+    }
+  }
+
+  TextDictionary getTextDictionary() {
+    return textDictionary;
+  }
+
   void repack() {
     if( packed ) {
       pack();
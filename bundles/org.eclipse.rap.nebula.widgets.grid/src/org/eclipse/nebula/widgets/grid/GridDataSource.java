@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+
+/**
+ * Provides the cell texts of a grid. A data source is attached to a grid by
+ * setting it as widget data with the key <code>Grid.DATA_SOURCE</code>.
+ * <p>
+ * The items of the grid read their texts from the data source instead of
+ * storing them. A text that is set on an item overrides the text of the data
+ * source for this item only. This way, the cell texts of a single data source
+ * can be shared by the grids of many UI sessions.
+ * </p>
+ * <p>
+ * Only the texts are shared. A grid still creates one <code>GridItem</code> per
+ * row of the data source, hence the items and their bookkeeping are allocated
+ * once per grid and session, like those of a grid without a data source.
+ * </p>
+ * <p>
+ * Implementations are accessed from the UI threads of all grids that they are
+ * attached to, hence they have to be thread safe. A data source must not
+ * change, a grid does not notice changes to its rows.
+ * </p>
+ *
+ * @see Grid#DATA_SOURCE
+ * @see ArrayGridDataSource
+ * @see ColumnarGridDataSource
+ */
+public interface GridDataSource {
+
+  /**
+   * Returns the number of rows of the data source.
+   *
+   * @return the number of rows
+   */
+  int getRowCount();
+
+  /**
+   * Returns the text of a cell. The row index is the index that the item had
+   * in the grid when the data source was attached, the column index is the
+   * index of the column in the grid.
+   *
+   * @param row the row index, between zero and the row count
+   * @param column the column index
+   * @return the text of the cell, or <code>null</code> if the cell is empty
+   */
+  String getText( int row, int column );
+
+}
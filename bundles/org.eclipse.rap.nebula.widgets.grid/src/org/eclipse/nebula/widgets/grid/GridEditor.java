@@ -245,6 +245,7 @@ public class GridEditor extends ControlEditor
 
         if (!table.isDisposed())
         {
+            table.editedItemChanged(item, null);
             table.removeListener(SWT.Resize, resizeListener);
 
             if (table.getVerticalScrollBarProxy() != null)
@@ -335,6 +336,7 @@ public class GridEditor extends ControlEditor
      */
     public void setItem(GridItem item)
     {
+        table.editedItemChanged(this.item, item);
         this.item = item;
         layout();
     }
@@ -12,6 +12,7 @@ package org.eclipse.nebula.widgets.grid;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.eclipse.nebula.widgets.grid.internal.IGridItemAdapter;
 import org.eclipse.rap.rwt.internal.textsize.TextSizeUtil;
@@ -49,6 +50,8 @@ import org.eclipse.swt.widgets.Widget;
 @SuppressWarnings("restriction")
 public class GridItem extends Item {
 
+  private static final Data DEFAULT_DATA = new Data();
+
   private Grid parent;
   private GridItem parentItem;
   private ArrayList<Data> data;
@@ -56,6 +59,8 @@ public class GridItem extends Item {
   private boolean hasChildren;
   private int level;
   private int customHeight = -1;
+  private int preferredHeight = -1;
+  private boolean packed;
   private boolean visible = true;
   private boolean expanded;
   private boolean hasSetData;
@@ -63,6 +68,10 @@ public class GridItem extends Item {
   private Color defaultBackground;
   private Color defaultForeground;
   private transient IGridItemAdapter gridItemAdapter;
+  boolean rendered;
+  int indexHint = -1;
+  int sourceRow = -1;
+  int levelIndexHint = -1;
 
   /**
    * Creates a new instance of this class and places the item at the end of
@@ -188,15 +197,19 @@ public class GridItem extends Item {
   public void dispose() {
     if( !parent.isDisposing() && !isDisposed() ) {
       for( int i = 0; i < parent.getColumnCount(); i++ ) {
-        Data itemData = getItemData( i );
-        updateColumnImageCount( i, itemData.image, null );
-        updateColumnTextCount( i, itemData.text, "" );
+        Data itemData = data.get( i );
+        if( itemData != null ) {
+          updateColumnImageCount( i, itemData.image, null );
+          updateColumnTextCount( i, itemData.text, "" );
+        }
       }
       parent.removeItem( this );
-      if( parentItem != null ) {
-        parentItem.remove( this );
-      } else {
-        parent.removeRootItem( this );
+      if( !parent.isRemovingItems() ) {
+        if( parentItem != null ) {
+          parentItem.remove( this );
+        } else {
+          parent.removeRootItem( this );
+        }
       }
       for( int i = children.size() - 1; i >= 0; i-- ) {
         children.get( i ).dispose();
@@ -335,6 +348,42 @@ public class GridItem extends Item {
     return children.toArray( new GridItem[ children.size() ] );
   }
 
+  /**
+   * Sets the number of child items contained in the receiver.
+   * <p>
+   * New items are appended at the end of the receiver's items. Together with
+   * the <code>SWT.VIRTUAL</code> style of the grid, this allows to populate
+   * the children lazily.
+   * </p>
+   *
+   * @param count
+   *            the number of items
+   * @throws org.eclipse.swt.SWTException
+   *             <ul>
+   *             <li>ERROR_WIDGET_DISPOSED - if the receiver has been disposed
+   *             </li>
+   *             <li>ERROR_THREAD_INVALID_ACCESS - if not called from the
+   *             thread that created the receiver</li>
+   *             </ul>
+   */
+  public void setItemCount( int count ) {
+    checkWidget();
+    int itemCount = Math.max( 0, count );
+    while( itemCount < children.size() ) {
+      children.get( children.size() - 1 ).dispose();
+    }
+    if( itemCount > children.size() ) {
+      parent.beginAppendItems( this );
+      try {
+        while( itemCount > children.size() ) {
+          new GridItem( this, SWT.NONE );
+        }
+      } finally {
+        parent.endAppendItems();
+      }
+    }
+  }
+
   /**
    * Returns the item at the given, zero-relative index in the receiver.
    * Throws an exception if the index is out of range.
@@ -391,7 +440,12 @@ public class GridItem extends Item {
     if( item.isDisposed() ) {
       SWT.error( SWT.ERROR_INVALID_ARGUMENT );
     }
-    return children.indexOf( item );
+    int result = item.levelIndexHint;
+    if( result < 0 || result >= children.size() || children.get( result ) != item ) {
+      result = children.indexOf( item );
+      item.levelIndexHint = result;
+    }
+    return result;
   }
 
   /**
@@ -514,6 +568,7 @@ public class GridItem extends Item {
       SWT.error( SWT.ERROR_INVALID_ARGUMENT );
     }
     defaultFont = font;
+    invalidatePreferredHeight();
     parent.redraw();
   }
 
@@ -563,6 +618,7 @@ public class GridItem extends Item {
       SWT.error( SWT.ERROR_INVALID_ARGUMENT );
     }
     getItemData( index ).font = font;
+    invalidatePreferredHeight();
     parent.redraw();
   }
 
@@ -681,7 +737,7 @@ public class GridItem extends Item {
   public Color getBackground( int index ) {
     checkWidget();
     handleVirtual();
-    Color result = getItemData( index ).background;
+    Color result = readItemData( index ).background;
      if( result == null ) {
        result = getBackground();
      }
@@ -782,7 +838,7 @@ public class GridItem extends Item {
   public Color getForeground( int index ) {
     checkWidget();
     handleVirtual();
-    Color result = getItemData( index ).foreground;
+    Color result = readItemData( index ).foreground;
     if( result == null ) {
       result = getForeground();
     }
@@ -829,13 +885,18 @@ public class GridItem extends Item {
     if( text == null ) {
       SWT.error( SWT.ERROR_NULL_ARGUMENT );
     }
+    internalSetText( index, text );
+    parent.redraw();
+  }
+
+  void internalSetText( int index, String text ) {
     if( parent.markupEnabled && !parent.markupValidationDisabled ) {
       MarkupValidator.getInstance().validate( text );
     }
     Data itemData = getItemData( index );
     updateColumnTextCount( index, itemData.text, text );
-    itemData.text = text;
-    parent.redraw();
+    itemData.text = encodeText( index, text );
+    invalidatePreferredHeight();
   }
 
   /**
@@ -856,7 +917,7 @@ public class GridItem extends Item {
   public String getText( int index ) {
     checkWidget();
     handleVirtual();
-    return getItemData( index ).text;
+    return getItemText( index );
   }
 
   /**
@@ -899,7 +960,7 @@ public class GridItem extends Item {
   public String getToolTipText( int index ) {
     checkWidget();
     handleVirtual();
-    return getItemData( index ).tooltip;
+    return readItemData( index ).tooltip;
   }
 
   /**
@@ -947,6 +1008,7 @@ public class GridItem extends Item {
     Data itemData = getItemData( index );
     updateColumnImageCount( index, itemData.image, image );
     itemData.image = image;
+    invalidatePreferredHeight();
     parent.imageSetOnItem( index, this );
     parent.redraw();
   }
@@ -969,7 +1031,7 @@ public class GridItem extends Item {
   public Image getImage( int index ) {
     checkWidget();
     handleVirtual();
-    return getItemData( index ).image;
+    return readItemData( index ).image;
   }
 
   /**
@@ -1047,7 +1109,7 @@ public class GridItem extends Item {
   public boolean getChecked( int index ) {
     checkWidget();
     handleVirtual();
-    return getItemData( index ).checked;
+    return readItemData( index ).checked;
   }
 
   /**
@@ -1133,7 +1195,7 @@ public class GridItem extends Item {
   public boolean getGrayed( int index ) {
     checkWidget();
     handleVirtual();
-    return getItemData( index ).grayed;
+    return readItemData( index ).grayed;
   }
 
   /**
@@ -1180,7 +1242,7 @@ public class GridItem extends Item {
   public boolean getCheckable( int index ) {
     checkWidget();
     handleVirtual();
-    boolean result = getItemData( index ).checkable;
+    boolean result = readItemData( index ).checkable;
     if( parent.getColumnCount() > 0 && !parent.getColumn( index ).getCheckable() ) {
       result = false;
     }
@@ -1205,6 +1267,7 @@ public class GridItem extends Item {
     if( height < 1 ) {
       SWT.error( SWT.ERROR_INVALID_ARGUMENT );
     }
+    packed = false;
     if( customHeight != height ) {
       customHeight = height;
       parent.hasDifferingHeights = true;
@@ -1224,7 +1287,9 @@ public class GridItem extends Item {
   }
 
   /**
-   * Sets this <code>GridItem</code> to its preferred height.
+   * Sets this <code>GridItem</code> to its preferred height. The height is
+   * measured when the receiver is redrawn and kept up to date when its
+   * texts, images or fonts change, until {@link #setHeight(int)} is called.
    *
    * @throws org.eclipse.swt.SWTException
    *             <ul>
@@ -1236,8 +1301,8 @@ public class GridItem extends Item {
    */
   public void pack() {
     checkWidget();
-    // [if] As different item heights are not supported, we only invalidate the cache here
-    parent.layoutCache.invalidateItemHeight();
+    packed = true;
+    parent.packItem( this );
   }
 
   /**
@@ -1318,13 +1383,25 @@ public class GridItem extends Item {
     setHasChildren( true );
     if( index == -1 ) {
       children.add( item );
+      item.levelIndexHint = children.size() - 1;
     } else {
       children.add( index, item );
+      item.levelIndexHint = index;
     }
   }
 
   private void remove( GridItem child ) {
-    children.remove( child );
+    int lastIndex = children.size() - 1;
+    if( lastIndex >= 0 && children.get( lastIndex ) == child ) {
+      children.remove( lastIndex );
+    } else {
+      children.remove( child );
+    }
+    hasChildren = children.size() > 0;
+  }
+
+  void removeChildren( Set<GridItem> removed ) {
+    Grid.filterItems( children, removed );
     hasChildren = children.size() > 0;
   }
 
@@ -1337,6 +1414,7 @@ public class GridItem extends Item {
       }
       hasSetData = false;
     }
+    invalidatePreferredHeight();
   }
 
   void columnRemoved( int index ) {
@@ -1345,19 +1423,43 @@ public class GridItem extends Item {
         data.remove( index );
       }
     }
+    invalidatePreferredHeight();
+  }
+
+  boolean isPacked() {
+    return packed;
+  }
+
+  void invalidatePreferredHeight() {
+    preferredHeight = -1;
+    if( packed ) {
+      parent.packItem( this );
+    }
+  }
+
+  boolean updatePreferredHeight() {
+    if( preferredHeight == -1 ) {
+      preferredHeight = parent.computeItemHeight( this );
+    }
+    boolean result = customHeight != preferredHeight;
+    customHeight = preferredHeight;
+    return result;
   }
 
   void clear( boolean allChildren ) {
     for( int i = 0; i < parent.getColumnCount(); i++ ) {
-      Data itemData = getItemData( i );
-      updateColumnImageCount( i, itemData.image, null );
-      updateColumnTextCount( i, itemData.text, "" );
+      Data itemData = data.get( i );
+      if( itemData != null ) {
+        updateColumnImageCount( i, itemData.image, null );
+        updateColumnTextCount( i, itemData.text, "" );
+      }
     }
     init();
     defaultFont = null;
     defaultBackground = null;
     defaultForeground = null;
     hasSetData = false;
+    preferredHeight = -1;
     // Recursively clear children if requested.
     if( allChildren ) {
       for( int i = children.size() - 1; i >= 0; i-- ) {
@@ -1367,6 +1469,7 @@ public class GridItem extends Item {
   }
 
   int getPreferredWidth( int index ) {
+    parent.addMetric( GridMetricsSink.PACK_MEASUREMENTS, 1 );
     int result = getIndentationWidth( index );
     result += getPaddingWidth( index );
     result += getCheckBoxWidth( index );
@@ -1406,16 +1509,35 @@ public class GridItem extends Item {
 
   private int getSpacing( int index ) {
     int result = 0;
-    String text = getItemData( index ).text;
+    String text = getItemText( index );
     if( parent.hasColumnImages( index ) && text.length() > 0 ) {
       result = parent.getCellSpacing();
     }
     return result;
   }
 
+  int getContentHeight() {
+    int result = 0;
+    int columnCount = Math.max( 1, parent.getColumnCount() );
+    for( int i = 0; i < columnCount; i++ ) {
+      Data itemData = data.get( i );
+      Font font = itemData != null && itemData.font != null ? itemData.font : getFont();
+      String text = getItemText( i );
+      if( text.indexOf( '\n' ) != -1 ) {
+        result = Math.max( result, TextSizeUtil.textExtent( font, text, 0 ).y );
+      } else {
+        result = Math.max( result, TextSizeUtil.getCharHeight( font ) );
+      }
+      if( itemData != null && itemData.image != null ) {
+        result = Math.max( result, itemData.image.getBounds().height );
+      }
+    }
+    return result;
+  }
+
   private int getTextWidth( int index ) {
     int result = 0;
-    String text = getItemData( index ).text;
+    String text = getItemText( index );
     if( text.length() > 0 ) {
       result += TextSizeUtil.stringExtent( internalGetFont( index ), text ).x;
     }
@@ -1434,7 +1556,7 @@ public class GridItem extends Item {
   }
 
   private Font internalGetFont( int index ) {
-    Font result = getItemData( index ).font;
+    Font result = readItemData( index ).font;
     if( result == null ) {
       result = getFont();
     }
@@ -1472,6 +1594,43 @@ public class GridItem extends Item {
     }
   }
 
+  void encodeText( int index ) {
+    Data itemData = data.get( index );
+    if( itemData != null && itemData.text != null ) {
+      itemData.text = encodeText( index, itemData.text );
+    }
+  }
+
+  private String encodeText( int index, String text ) {
+    String result = text;
+    if( index < parent.getColumnCount() ) {
+      result = parent.getColumn( index ).encodeText( text );
+    }
+    return result;
+  }
+
+  /*
+   * Returns the text that is set on the item or, if none is set, the text of
+   * the data source of the grid. Does not create cell data.
+   */
+  private String getItemText( int index ) {
+    Data itemData = data.get( index );
+    String result = itemData == null ? null : itemData.text;
+    if( result == null ) {
+      result = parent.getSourceText( this, index );
+    }
+    return result;
+  }
+
+  /*
+   * Returns the cell data for reading. Cells without data share a default
+   * instance, which must not be modified.
+   */
+  private Data readItemData( int index ) {
+    Data result = data.get( index );
+    return result == null ? DEFAULT_DATA : result;
+  }
+
   private Data getItemData( int index ) {
     if( data.get( index ) == null ) {
       data.set( index, new Data() );
@@ -1479,9 +1638,14 @@ public class GridItem extends Item {
     return data.get( index );
   }
 
-  private void handleVirtual() {
+  boolean isResolved() {
+    return ( getParent().getStyle() & SWT.VIRTUAL ) == 0 || hasSetData;
+  }
+
+  void handleVirtual() {
     if( ( getParent().getStyle() & SWT.VIRTUAL ) != 0 && !hasSetData ) {
       hasSetData = true;
+      parent.itemResolved( this );
       Event event = new Event();
       event.item = this;
       if( parentItem == null ) {
@@ -1489,7 +1653,17 @@ public class GridItem extends Item {
       } else {
         event.index = parentItem.indexOf( this );
       }
-      getParent().notifyListeners( SWT.SetData, event );
+      long traceStart = parent.startTrace();
+      GridMetricsSink metricsSink = parent.getMetricsSink();
+      if( metricsSink == null ) {
+        getParent().notifyListeners( SWT.SetData, event );
+      } else {
+        long start = System.nanoTime();
+        getParent().notifyListeners( SWT.SetData, event );
+        metricsSink.add( parent, GridMetricsSink.SET_DATA_NANOS, System.nanoTime() - start );
+        metricsSink.add( parent, GridMetricsSink.ITEMS_RESOLVED, 1 );
+      }
+      parent.endTrace( GridTraceEvent.SET_DATA, traceStart, 1, parent.getColumnCount() );
     }
   }
 
@@ -1521,10 +1695,11 @@ public class GridItem extends Item {
   }
 
   private void updateColumnTextCount( int index, String oldText, String newText ) {
+    int oldLength = oldText == null ? 0 : oldText.length();
     int delta = 0;
-    if( oldText.length() == 0 && newText.length() > 0 ) {
+    if( oldLength == 0 && newText.length() > 0 ) {
       delta = +1;
-    } else if( oldText.length() > 0 && newText.length() == 0 ) {
+    } else if( oldLength > 0 && newText.length() == 0 ) {
       delta = -1;
     }
     if( delta != 0 && index >= 0 && index < parent.getColumnCount() ) {
@@ -1539,7 +1714,7 @@ public class GridItem extends Item {
     public Font font;
     public Color background;
     public Color foreground;
-    public String text = "";
+    public String text;
     public String tooltip;
     public Image image;
     public boolean checked;
@@ -1556,6 +1731,10 @@ public class GridItem extends Item {
       return itemParent.isDisposed();
     }
 
+    public boolean isCached() {
+      return isResolved();
+    }
+
     public Color getUserBackground() {
       return defaultBackground;
     }
@@ -1568,31 +1747,16 @@ public class GridItem extends Item {
       return defaultFont;
     }
 
-    public Color[] getCellBackgrounds() {
-      int columnCount = Math.max( 1, getParent().getColumnCount() );
-      Color[] result = new Color[ columnCount ];
-      for( int i = 0; i < columnCount; i++ ) {
-        result[ i ] = getItemData( i ).background;
-      }
-      return result;
+    public Color getCellBackground( int index ) {
+      return readItemData( index ).background;
     }
 
-    public Color[] getCellForegrounds() {
-      int columnCount = Math.max( 1, getParent().getColumnCount() );
-      Color[] result = new Color[ columnCount ];
-      for( int i = 0; i < columnCount; i++ ) {
-        result[ i ] = getItemData( i ).foreground;
-      }
-      return result;
+    public Color getCellForeground( int index ) {
+      return readItemData( index ).foreground;
     }
 
-    public Font[] getCellFonts() {
-      int columnCount = Math.max( 1, getParent().getColumnCount() );
-      Font[] result = new Font[ columnCount ];
-      for( int i = 0; i < columnCount; i++ ) {
-        result[ i ] = getItemData( i ).font;
-      }
-      return result;
+    public Font getCellFont( int index ) {
+      return readItemData( index ).font;
     }
   }
 
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+
+/**
+ * Receives runtime metrics of a grid. A sink is attached to a grid by setting
+ * it as widget data with the key <code>Grid.METRICS_SINK</code>. All metrics
+ * are counters, the sink is notified about the increments.
+ * <p>
+ * Implementations are called in the UI thread of the grid and should return
+ * quickly. When the same sink is attached to grids of different UI sessions,
+ * it has to be thread safe.
+ * </p>
+ *
+ * @see Grid#METRICS_SINK
+ * @see JmxGridMetricsSink
+ */
+public interface GridMetricsSink {
+
+  /**
+   * The number of created items. Items that exist when the sink is attached
+   * are reported as created.
+   */
+  String ITEMS_CREATED = "itemsCreated";
+
+  /**
+   * The number of disposed items. Items that exist when the sink is detached
+   * are reported as disposed.
+   */
+  String ITEMS_DISPOSED = "itemsDisposed";
+
+  /**
+   * The number of items of a <code>SWT.VIRTUAL</code> grid that were
+   * materialized by a <code>SWT.SetData</code> event.
+   */
+  String ITEMS_RESOLVED = "itemsResolved";
+
+  /**
+   * The time spent in <code>SWT.SetData</code> listeners in nanoseconds.
+   */
+  String SET_DATA_NANOS = "setDataNanos";
+
+  /**
+   * The time spent preserving the values of the grid and its items in
+   * nanoseconds.
+   */
+  String PRESERVE_NANOS = "preserveNanos";
+
+  /**
+   * The time spent rendering the changes of the grid and its items in
+   * nanoseconds.
+   */
+  String RENDER_NANOS = "renderNanos";
+
+  /**
+   * The number of items whose cell data was rendered.
+   */
+  String RENDERED_ITEMS = "renderedItems";
+
+  /**
+   * The size of the rendered item texts in UTF-8 encoded bytes, which make up
+   * most of the protocol messages of a grid.
+   */
+  String PROTOCOL_BYTES = "protocolBytes";
+
+  /**
+   * The number of item heights and cell widths that were measured to pack
+   * items and columns.
+   */
+  String PACK_MEASUREMENTS = "packMeasurements";
+
+  /**
+   * Adds the given value to a metric of the grid.
+   *
+   * @param grid the grid that the metric belongs to
+   * @param metric the name of the metric, one of the constants of this
+   *          interface
+   * @param value the increment
+   */
+  void add( Grid grid, String metric, long value );
+
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+
+/**
+ * Describes a completed operation of a grid that was traced by a
+ * <code>GridTraceListener</code>.
+ *
+ * @see GridTraceListener
+ */
+public final class GridTraceEvent {
+
+  /**
+   * Measuring the heights of packed items. The row count is the number of
+   * measured items.
+   */
+  public static final String PACK_ITEMS = "packItems";
+
+  /**
+   * Measuring the content width of a column in <code>GridColumn#pack()</code>.
+   * The row count is the number of measured items.
+   */
+  public static final String PACK_COLUMN = "packColumn";
+
+  /**
+   * Notifying the <code>SWT.SetData</code> listeners for an item of a
+   * <code>SWT.VIRTUAL</code> grid.
+   */
+  public static final String SET_DATA = "setData";
+
+  /**
+   * Updating the scroll bars of the grid. The row count is the number of
+   * visible items.
+   */
+  public static final String UPDATE_SCROLL_BARS = "updateScrollBars";
+
+  /**
+   * Computing the range of rows that fit into a height. The row count is the
+   * number of rows in the range.
+   */
+  public static final String GET_ROW_RANGE = "getRowRange";
+
+  /**
+   * Preserving the values of the grid in the life cycle.
+   */
+  public static final String PRESERVE = "preserve";
+
+  /**
+   * Rendering the changes of the grid in the life cycle, including the
+   * resolving of the visible items of a <code>SWT.VIRTUAL</code> grid.
+   */
+  public static final String RENDER = "render";
+
+  private final Grid grid;
+  private final String operation;
+  private final long durationNanos;
+  private final int rowCount;
+  private final int columnCount;
+
+  /**
+   * Creates a new event.
+   *
+   * @param grid the grid that executed the operation
+   * @param operation the name of the operation, one of the constants of this
+   *          class
+   * @param durationNanos the duration of the operation in nanoseconds
+   * @param rowCount the number of rows that the operation processed
+   * @param columnCount the number of columns that the operation processed
+   */
+  public GridTraceEvent( Grid grid,
+                         String operation,
+                         long durationNanos,
+                         int rowCount,
+                         int columnCount )
+  {
+    this.grid = grid;
+    this.operation = operation;
+    this.durationNanos = durationNanos;
+    this.rowCount = rowCount;
+    this.columnCount = columnCount;
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  @Override
+  public String toString() {
+    return   "GridTraceEvent{" + operation
+           + ", durationNanos=" + durationNanos
+           + ", rows=" + rowCount
+           + ", columns=" + columnCount + "}";
+  }
+
+}
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+
+/**
+ * Is notified about the expensive operations of a grid, e.g. packing items,
+ * <code>SWT.SetData</code> listeners or rendering. A trace listener is
+ * attached to a grid by setting it as widget data with the key
+ * <code>Grid.TRACE_LISTENER</code>.
+ * <p>
+ * The listener is called in the UI thread at the end of the traced operation,
+ * hence the current call stack shows what triggered it.
+ * </p>
+ *
+ * @see Grid#TRACE_LISTENER
+ * @see SlowGridOperationLogger
+ */
+public interface GridTraceListener {
+
+  /**
+   * Called when a traced operation has completed.
+   *
+   * @param event the event describing the operation
+   */
+  void operationTraced( GridTraceEvent event );
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.nebula.widgets.grid.internal.GridMetrics;
+import org.eclipse.rap.rwt.RWT;
+import org.eclipse.rap.rwt.service.UISession;
+import org.eclipse.rap.rwt.service.UISessionEvent;
+import org.eclipse.rap.rwt.service.UISessionListener;
+
+
+/**
+ * A <code>GridMetricsSink</code> that aggregates the metrics of all attached
+ * grids per UI session and in total, and exposes them as MBeans of the
+ * platform MBean server.
+ * <p>
+ * The MBeans are registered in the domain
+ * <code>org.eclipse.nebula.widgets.grid</code> with the type
+ * <code>GridMetrics</code>. The totals are named <code>total</code>, the
+ * metrics of a UI session are named after the session id and are
+ * unregistered when the UI session is destroyed. MBeans with these names that
+ * were registered before, e.g. by this class before a restart of its bundle,
+ * are replaced.
+ * </p>
+ *
+ * @see Grid#METRICS_SINK
+ */
+public class JmxGridMetricsSink implements GridMetricsSink {
+
+  private static final String DOMAIN = "org.eclipse.nebula.widgets.grid";
+  private static final String TYPE = "GridMetrics";
+
+  private static JmxGridMetricsSink instance;
+
+  private final MBeanServer server;
+  private final GridMetrics total;
+  private final Map<String, GridMetrics> sessionMetrics;
+
+  /**
+   * Returns the shared instance, which registers its MBeans with the platform
+   * MBean server.
+   *
+   * @return the shared instance
+   */
+  public static synchronized JmxGridMetricsSink getInstance() {
+    if( instance == null ) {
+      instance = new JmxGridMetricsSink( ManagementFactory.getPlatformMBeanServer() );
+    }
+    return instance;
+  }
+
+  private JmxGridMetricsSink( MBeanServer server ) {
+    this.server = server;
+    total = new GridMetrics();
+    sessionMetrics = new HashMap<String, GridMetrics>();
+    register( "total", total );
+  }
+
+  public void add( Grid grid, String metric, long value ) {
+    total.add( metric, value );
+    getSessionMetrics( RWT.getUISession( grid.getDisplay() ) ).add( metric, value );
+  }
+
+  private GridMetrics getSessionMetrics( UISession uiSession ) {
+    final String id = uiSession.getId();
+    synchronized( sessionMetrics ) {
+      GridMetrics result = sessionMetrics.get( id );
+      if( result == null ) {
+        result = new GridMetrics();
+        sessionMetrics.put( id, result );
+        register( id, result );
+        uiSession.addUISessionListener( new UISessionListener() {
+          public void beforeDestroy( UISessionEvent event ) {
+            removeSessionMetrics( id );
+          }
+        } );
+      }
+      return result;
+    }
+  }
+
+  private void removeSessionMetrics( String id ) {
+    synchronized( sessionMetrics ) {
+      if( sessionMetrics.remove( id ) != null ) {
+        try {
+          server.unregisterMBean( createName( id ) );
+        } catch( JMException exception ) {
+          throw new IllegalStateException( "Failed to unregister grid metrics", exception );
+        }
+      }
+    }
+  }
+
+  /*
+   * An MBean with the same name may be left over from an instance that was
+   * loaded before a restart of the bundle. It belongs to another class loader
+   * and cannot be reused, hence it is replaced.
+   */
+  private void register( String name, GridMetrics metrics ) {
+    try {
+      ObjectName objectName = createName( name );
+      if( server.isRegistered( objectName ) ) {
+        server.unregisterMBean( objectName );
+      }
+      server.registerMBean( metrics, objectName );
+    } catch( JMException exception ) {
+      throw new IllegalStateException( "Failed to register grid metrics", exception );
+    }
+  }
+
+  private static ObjectName createName( String name ) throws JMException {
+    return new ObjectName( DOMAIN + ":type=" + TYPE + ",name=" + ObjectName.quote( name ) );
+  }
+
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import java.io.PrintStream;
+
+
+/**
+ * A <code>GridTraceListener</code> that logs the operations which take longer
+ * than a threshold, together with the call stack that triggered them.
+ *
+ * @see Grid#TRACE_LISTENER
+ */
+public class SlowGridOperationLogger implements GridTraceListener {
+
+  private final long thresholdNanos;
+  private final PrintStream stream;
+
+  /**
+   * Creates a logger that writes to <code>System.err</code>.
+   *
+   * @param thresholdMillis the minimal duration of a logged operation in
+   *          milliseconds
+   */
+  public SlowGridOperationLogger( long thresholdMillis ) {
+    this( thresholdMillis, System.err );
+  }
+
+  /**
+   * Creates a logger that writes to the given stream.
+   *
+   * @param thresholdMillis the minimal duration of a logged operation in
+   *          milliseconds
+   * @param stream the stream to write to
+   */
+  public SlowGridOperationLogger( long thresholdMillis, PrintStream stream ) {
+    if( stream == null ) {
+      throw new IllegalArgumentException( "stream must not be null" );
+    }
+    thresholdNanos = thresholdMillis * 1000000L;
+    this.stream = stream;
+  }
+
+  public void operationTraced( GridTraceEvent event ) {
+    if( event.getDurationNanos() >= thresholdNanos ) {
+      StringBuilder message = new StringBuilder();
+      message.append( "Slow grid operation: " ).append( event.getOperation() );
+      message.append( " took " ).append( event.getDurationNanos() / 1000000L ).append( " ms" );
+      message.append( ", rows=" ).append( event.getRowCount() );
+      message.append( ", columns=" ).append( event.getColumnCount() );
+      new SlowOperation( message.toString() ).printStackTrace( stream );
+    }
+  }
+
+  private static final class SlowOperation extends Throwable {
+
+    private static final long serialVersionUID = 1L;
+
+    SlowOperation( String message ) {
+      super( message );
+    }
+  }
+
+}
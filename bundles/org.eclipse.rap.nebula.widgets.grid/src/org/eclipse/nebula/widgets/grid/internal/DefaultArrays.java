@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Image;
+
+
+/**
+ * Provides shared arrays of default cell values, one per column count. The
+ * LCAs use them as default values when rendering cell properties.
+ * <p>
+ * The returned arrays are shared between all sessions and must never be
+ * modified.
+ * </p>
+ */
+public final class DefaultArrays {
+
+  private static final int CACHE_SIZE = 64;
+
+  private static final ArrayCache<String[]> EMPTY_STRINGS = new ArrayCache<String[]>() {
+    @Override
+    String[] create( int length ) {
+      String[] result = new String[ length ];
+      Arrays.fill( result, "" );
+      return result;
+    }
+  };
+
+  private static final ArrayCache<Image[]> NULL_IMAGES = new ArrayCache<Image[]>() {
+    @Override
+    Image[] create( int length ) {
+      return new Image[ length ];
+    }
+  };
+
+  private static final ArrayCache<Color[]> NULL_COLORS = new ArrayCache<Color[]>() {
+    @Override
+    Color[] create( int length ) {
+      return new Color[ length ];
+    }
+  };
+
+  private static final ArrayCache<Font[]> NULL_FONTS = new ArrayCache<Font[]>() {
+    @Override
+    Font[] create( int length ) {
+      return new Font[ length ];
+    }
+  };
+
+  private static final ArrayCache<boolean[]> FALSE_FLAGS = new ArrayCache<boolean[]>() {
+    @Override
+    boolean[] create( int length ) {
+      return new boolean[ length ];
+    }
+  };
+
+  private static final ArrayCache<boolean[]> TRUE_FLAGS = new ArrayCache<boolean[]>() {
+    @Override
+    boolean[] create( int length ) {
+      boolean[] result = new boolean[ length ];
+      Arrays.fill( result, true );
+      return result;
+    }
+  };
+
+  public static String[] getEmptyStrings( int length ) {
+    return EMPTY_STRINGS.get( length );
+  }
+
+  public static Image[] getNullImages( int length ) {
+    return NULL_IMAGES.get( length );
+  }
+
+  public static Color[] getNullColors( int length ) {
+    return NULL_COLORS.get( length );
+  }
+
+  public static Font[] getNullFonts( int length ) {
+    return NULL_FONTS.get( length );
+  }
+
+  public static boolean[] getFalseFlags( int length ) {
+    return FALSE_FLAGS.get( length );
+  }
+
+  public static boolean[] getTrueFlags( int length ) {
+    return TRUE_FLAGS.get( length );
+  }
+
+  private DefaultArrays() {
+    // prevent instantiation
+  }
+
+  /*
+   * Caches the arrays for lengths below CACHE_SIZE, longer arrays are created
+   * with every call.
+   */
+  private static abstract class ArrayCache<T> {
+
+    private final Object[] arrays = new Object[ CACHE_SIZE ];
+
+    @SuppressWarnings("unchecked")
+    synchronized T get( int length ) {
+      T result = length < CACHE_SIZE ? ( T )arrays[ length ] : null;
+      if( result == null ) {
+        result = create( length );
+        if( length < CACHE_SIZE ) {
+          arrays[ length ] = result;
+        }
+      }
+      return result;
+    }
+
+    abstract T create( int length );
+  }
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.internal;
+
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.ITEMS_CREATED;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.ITEMS_DISPOSED;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.ITEMS_RESOLVED;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.PACK_MEASUREMENTS;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.PRESERVE_NANOS;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.PROTOCOL_BYTES;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.RENDERED_ITEMS;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.RENDER_NANOS;
+import static org.eclipse.nebula.widgets.grid.GridMetricsSink.SET_DATA_NANOS;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+ * Thread safe counters for the metrics of the grids of one UI session or of all
+ * UI sessions, exposed as a standard MBean.
+ */
+public class GridMetrics implements GridMetricsMBean {
+
+  private final ConcurrentMap<String, AtomicLong> counters;
+
+  public GridMetrics() {
+    counters = new ConcurrentHashMap<String, AtomicLong>();
+  }
+
+  public void add( String metric, long value ) {
+    AtomicLong counter = counters.get( metric );
+    if( counter == null ) {
+      AtomicLong newCounter = new AtomicLong();
+      counter = counters.putIfAbsent( metric, newCounter );
+      if( counter == null ) {
+        counter = newCounter;
+      }
+    }
+    counter.addAndGet( value );
+  }
+
+  public long get( String metric ) {
+    AtomicLong counter = counters.get( metric );
+    return counter == null ? 0 : counter.get();
+  }
+
+  public long getItemCount() {
+    return get( ITEMS_CREATED ) - get( ITEMS_DISPOSED );
+  }
+
+  public long getItemsCreated() {
+    return get( ITEMS_CREATED );
+  }
+
+  public long getItemsDisposed() {
+    return get( ITEMS_DISPOSED );
+  }
+
+  public long getItemsResolved() {
+    return get( ITEMS_RESOLVED );
+  }
+
+  public long getSetDataNanos() {
+    return get( SET_DATA_NANOS );
+  }
+
+  public long getPreserveNanos() {
+    return get( PRESERVE_NANOS );
+  }
+
+  public long getRenderNanos() {
+    return get( RENDER_NANOS );
+  }
+
+  public long getRenderedItems() {
+    return get( RENDERED_ITEMS );
+  }
+
+  public long getProtocolBytes() {
+    return get( PROTOCOL_BYTES );
+  }
+
+  public long getPackMeasurements() {
+    return get( PACK_MEASUREMENTS );
+  }
+
+  public void reset() {
+    long itemCount = getItemCount();
+    counters.clear();
+    // keep the item count, the items are still alive
+    add( ITEMS_CREATED, itemCount );
+  }
+
+}
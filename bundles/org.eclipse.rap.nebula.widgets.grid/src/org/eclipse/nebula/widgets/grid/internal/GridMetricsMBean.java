@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.internal;
+
+
+public interface GridMetricsMBean {
+
+  long getItemCount();
+  long getItemsCreated();
+  long getItemsDisposed();
+  long getItemsResolved();
+  long getSetDataNanos();
+  long getPreserveNanos();
+  long getRenderNanos();
+  long getRenderedItems();
+  long getProtocolBytes();
+  long getPackMeasurements();
+
+  void reset();
+
+}
@@ -11,6 +11,8 @@
 package org.eclipse.nebula.widgets.grid.internal;
 
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.GridMetricsSink;
+import org.eclipse.nebula.widgets.grid.GridTraceListener;
 
 
 public interface IGridAdapter {
@@ -28,7 +30,14 @@ public interface IGridAdapter {
   int getTextWidth( int index );
 
   int getItemIndex( GridItem item );
+  GridItem getItem( String itemId );
+  void checkData();
   
   void doRedraw();
 
+  GridMetricsSink getMetricsSink();
+  GridTraceListener getTraceListener();
+
+  void clearResolvedItems();
+
 }
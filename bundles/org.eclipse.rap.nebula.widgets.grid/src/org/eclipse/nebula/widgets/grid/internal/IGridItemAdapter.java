@@ -16,9 +16,10 @@ import org.eclipse.swt.graphics.Font;
 
 public interface IGridItemAdapter {
 
-  Color[] getCellBackgrounds();
-  Color[] getCellForegrounds();
-  Font[] getCellFonts();
+  Color getCellBackground( int index );
+  Color getCellForeground( int index );
+  Font getCellFont( int index );
   boolean isParentDisposed();
+  boolean isCached();
 
 }
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.swt.internal.SerializableCompatibility;
+
+
+/**
+ * Holds the distinct texts of a column. Items store the instance returned by
+ * the dictionary, hence equal texts of different items share one string. The
+ * sharing is kept when the column and its items are serialized together. The
+ * dictionary holds at most <code>MAX_SIZE</code> texts, further texts are not
+ * shared.
+ */
+@SuppressWarnings( "restriction" )
+public final class TextDictionary implements SerializableCompatibility {
+
+  public static final int MAX_SIZE = 4096;
+
+  private final Map<String, String> texts = new HashMap<String, String>();
+
+  /**
+   * Returns the shared instance of the given text. The text is added to the
+   * dictionary if it is not yet contained and the dictionary is not full.
+   */
+  public String getText( String text ) {
+    String result = texts.get( text );
+    if( result == null ) {
+      result = text;
+      if( texts.size() < MAX_SIZE ) {
+        texts.put( result, result );
+      }
+    }
+    return result;
+  }
+
+  public int size() {
+    return texts.size();
+  }
+
+  public void clear() {
+    texts.clear();
+  }
+
+}
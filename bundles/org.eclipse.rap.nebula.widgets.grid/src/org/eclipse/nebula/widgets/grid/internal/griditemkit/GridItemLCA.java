@@ -10,6 +10,12 @@
  ******************************************************************************/
 package org.eclipse.nebula.widgets.grid.internal.griditemkit;
 
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getEmptyStrings;
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getFalseFlags;
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getNullColors;
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getNullFonts;
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getNullImages;
+import static org.eclipse.nebula.widgets.grid.internal.DefaultArrays.getTrueFlags;
 import static org.eclipse.rap.rwt.internal.protocol.RemoteObjectFactory.createRemoteObject;
 import static org.eclipse.rap.rwt.internal.protocol.RemoteObjectFactory.getRemoteObject;
 import static org.eclipse.rap.rwt.lifecycle.WidgetLCAUtil.preserveProperty;
@@ -20,12 +26,14 @@ import java.io.IOException;
 
 import org.eclipse.nebula.widgets.grid.Grid;
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.GridMetricsSink;
 import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.nebula.widgets.grid.internal.IGridItemAdapter;
 import org.eclipse.rap.rwt.internal.protocol.ProtocolUtil;
 import org.eclipse.rap.rwt.internal.remote.RemoteObjectImpl;
 import org.eclipse.rap.rwt.lifecycle.AbstractWidgetLCA;
 import org.eclipse.rap.rwt.lifecycle.ProcessActionRunner;
+import org.eclipse.rap.rwt.lifecycle.WidgetAdapter;
 import org.eclipse.rap.rwt.lifecycle.WidgetLCAUtil;
 import org.eclipse.rap.rwt.lifecycle.WidgetUtil;
 import org.eclipse.rap.rwt.remote.RemoteObject;
@@ -46,6 +54,10 @@ public class GridItemLCA extends AbstractWidgetLCA {
   private static final String PROP_HEIGHT = "height";
   private static final String PROP_TEXTS = "texts";
   private static final String PROP_IMAGES = "images";
+  // properties preserved by WidgetLCAUtil for the colors and font of the item
+  private static final String PROP_BACKGROUND = "background";
+  private static final String PROP_FOREGROUND = "foreground";
+  private static final String PROP_FONT = "font";
   private static final String PROP_CELL_BACKGROUNDS = "cellBackgrounds";
   private static final String PROP_CELL_FOREGROUNDS = "cellForegrounds";
   private static final String PROP_CELL_FONTS = "cellFonts";
@@ -53,6 +65,7 @@ public class GridItemLCA extends AbstractWidgetLCA {
   private static final String PROP_CELL_CHECKED = "cellChecked";
   private static final String PROP_CELL_GRAYED = "cellGrayed";
   private static final String PROP_CELL_CHECKABLE = "cellCheckable";
+  private static final String PROP_CACHED = "cached";
 
   private static final int ZERO = 0;
 
@@ -74,61 +87,29 @@ public class GridItemLCA extends AbstractWidgetLCA {
   @Override
   public void preserveValues( Widget widget ) {
     GridItem item = ( GridItem )widget;
-    WidgetLCAUtil.preserveCustomVariant( item );
-    WidgetLCAUtil.preserveData( item );
-    preserveProperty( item, PROP_ITEM_COUNT, item.getItemCount() );
-    preserveProperty( item, PROP_HEIGHT, item.getHeight() );
-    preserveProperty( item, PROP_TEXTS, getTexts( item ) );
-    preserveProperty( item, PROP_IMAGES, getImages( item ) );
-    WidgetLCAUtil.preserveBackground( item, getUserBackground( item ) );
-    WidgetLCAUtil.preserveForeground( item, getUserForeground( item ) );
-    WidgetLCAUtil.preserveFont( item, getUserFont( item ) );
-    preserveProperty( item, PROP_CELL_BACKGROUNDS, getCellBackgrounds( item ) );
-    preserveProperty( item, PROP_CELL_FOREGROUNDS, getCellForegrounds( item ) );
-    preserveProperty( item, PROP_CELL_FONTS, getCellFonts( item ) );
-    preserveProperty( item, PROP_EXPANDED, item.isExpanded() );
-    preserveProperty( item, PROP_CELL_CHECKED, getCellChecked( item ) );
-    preserveProperty( item, PROP_CELL_GRAYED, getCellGrayed( item ) );
-    preserveProperty( item, PROP_CELL_CHECKABLE, getCellCheckable( item ) );
+    GridMetricsSink metricsSink = getGridAdapter( item.getParent() ).getMetricsSink();
+    if( metricsSink == null ) {
+      preserveItemValues( item );
+    } else {
+      long start = System.nanoTime();
+      preserveItemValues( item );
+      long duration = System.nanoTime() - start;
+      metricsSink.add( item.getParent(), GridMetricsSink.PRESERVE_NANOS, duration );
+    }
   }
 
   @Override
   public void renderChanges( Widget widget ) throws IOException {
     GridItem item = ( GridItem )widget;
-    WidgetLCAUtil.renderCustomVariant( item );
-    WidgetLCAUtil.renderData( item );
-    renderProperty( item, PROP_ITEM_COUNT, item.getItemCount(), ZERO );
-    renderProperty( item, PROP_HEIGHT, item.getHeight(), item.getParent().getItemHeight() );
-    renderProperty( item, PROP_TEXTS, getTexts( item ), getDefaultTexts( item ) );
-    renderProperty( item, PROP_IMAGES, getImages( item ), new Image[ getColumnCount( item ) ] );
-    WidgetLCAUtil.renderBackground( item, getUserBackground( item ) );
-    WidgetLCAUtil.renderForeground( item, getUserForeground( item ) );
-    WidgetLCAUtil.renderFont( item, getUserFont( item ) );
-    renderProperty( item,
-                    PROP_CELL_BACKGROUNDS,
-                    getCellBackgrounds( item ),
-                    new Color[ getColumnCount( item ) ] );
-    renderProperty( item,
-                    PROP_CELL_FOREGROUNDS,
-                    getCellForegrounds( item ),
-                    new Color[ getColumnCount( item ) ] );
-    renderProperty( item,
-                    PROP_CELL_FONTS,
-                    getCellFonts( item ),
-                    new Font[ getColumnCount( item ) ] );
-    renderProperty( item, PROP_EXPANDED, item.isExpanded(), false );
-    renderProperty( item,
-                    PROP_CELL_CHECKED,
-                    getCellChecked( item ),
-                    new boolean[ getColumnCount( item ) ] );
-    renderProperty( item,
-                    PROP_CELL_GRAYED,
-                    getCellGrayed( item ),
-                    new boolean[ getColumnCount( item ) ] );
-    renderProperty( item,
-                    PROP_CELL_CHECKABLE,
-                    getCellCheckable( item ),
-                    getDefaultCellCheckable( item ) );
+    GridMetricsSink metricsSink = getGridAdapter( item.getParent() ).getMetricsSink();
+    if( metricsSink == null ) {
+      renderItemChanges( item, null );
+    } else {
+      long start = System.nanoTime();
+      renderItemChanges( item, metricsSink );
+      long duration = System.nanoTime() - start;
+      metricsSink.add( item.getParent(), GridMetricsSink.RENDER_NANOS, duration );
+    }
   }
 
   @Override
@@ -143,6 +124,113 @@ public class GridItemLCA extends AbstractWidgetLCA {
     }
   }
 
+  private static void preserveItemValues( GridItem item ) {
+    WidgetLCAUtil.preserveCustomVariant( item );
+    WidgetLCAUtil.preserveData( item );
+    preserveProperty( item, PROP_ITEM_COUNT, item.getItemCount() );
+    preserveProperty( item, PROP_HEIGHT, item.getHeight() );
+    preserveProperty( item, PROP_EXPANDED, item.isExpanded() );
+    preserveProperty( item, PROP_CACHED, isCached( item ) );
+    if( isCached( item ) ) {
+      preserveProperty( item, PROP_TEXTS, getTexts( item ) );
+      preserveProperty( item, PROP_IMAGES, getImages( item ) );
+      WidgetLCAUtil.preserveBackground( item, getUserBackground( item ) );
+      WidgetLCAUtil.preserveForeground( item, getUserForeground( item ) );
+      WidgetLCAUtil.preserveFont( item, getUserFont( item ) );
+      int columnCount = getColumnCount( item );
+      preserveProperty( item, PROP_CELL_BACKGROUNDS, getCellBackgrounds( item, columnCount ) );
+      preserveProperty( item, PROP_CELL_FOREGROUNDS, getCellForegrounds( item, columnCount ) );
+      preserveProperty( item, PROP_CELL_FONTS, getCellFonts( item, columnCount ) );
+      preserveProperty( item, PROP_CELL_CHECKED, getCellChecked( item ) );
+      preserveProperty( item, PROP_CELL_GRAYED, getCellGrayed( item ) );
+      preserveProperty( item, PROP_CELL_CHECKABLE, getCellCheckable( item ) );
+    }
+  }
+
+  private static void renderItemChanges( GridItem item, GridMetricsSink metricsSink )
+    throws IOException
+  {
+    WidgetLCAUtil.renderCustomVariant( item );
+    WidgetLCAUtil.renderData( item );
+    renderProperty( item, PROP_ITEM_COUNT, item.getItemCount(), ZERO );
+    renderProperty( item, PROP_HEIGHT, item.getHeight(), item.getParent().getItemHeight() );
+    renderProperty( item, PROP_EXPANDED, item.isExpanded(), false );
+    if( isCached( item ) ) {
+      renderCellData( item, metricsSink );
+    } else if( wasCleared( item ) ) {
+      getRemoteObject( item ).call( "clear", null );
+    }
+  }
+
+  //////////////////////////////////////////////
+  // Helping methods to render widget properties
+
+  private static void renderCellData( GridItem item, GridMetricsSink metricsSink ) {
+    int columnCount = getColumnCount( item );
+    boolean rendered = false;
+    if( hasTextsChanged( item, columnCount ) ) {
+      String[] texts = getTexts( item );
+      renderProperty( item, PROP_TEXTS, texts, getEmptyStrings( columnCount ) );
+      if( metricsSink != null ) {
+        metricsSink.add( item.getParent(), GridMetricsSink.PROTOCOL_BYTES, getLength( texts ) );
+      }
+      rendered = true;
+    }
+    if( hasImagesChanged( item, columnCount ) ) {
+      renderProperty( item, PROP_IMAGES, getImages( item ), getNullImages( columnCount ) );
+      rendered = true;
+    }
+    rendered |= hasUserStyleChanged( item );
+    WidgetLCAUtil.renderBackground( item, getUserBackground( item ) );
+    WidgetLCAUtil.renderForeground( item, getUserForeground( item ) );
+    WidgetLCAUtil.renderFont( item, getUserFont( item ) );
+    if( hasCellBackgroundsChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_BACKGROUNDS,
+                      getCellBackgrounds( item, columnCount ),
+                      getNullColors( columnCount ) );
+      rendered = true;
+    }
+    if( hasCellForegroundsChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_FOREGROUNDS,
+                      getCellForegrounds( item, columnCount ),
+                      getNullColors( columnCount ) );
+      rendered = true;
+    }
+    if( hasCellFontsChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_FONTS,
+                      getCellFonts( item, columnCount ),
+                      getNullFonts( columnCount ) );
+      rendered = true;
+    }
+    if( hasCellCheckedChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_CHECKED,
+                      getCellChecked( item ),
+                      getFalseFlags( columnCount ) );
+      rendered = true;
+    }
+    if( hasCellGrayedChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_GRAYED,
+                      getCellGrayed( item ),
+                      getFalseFlags( columnCount ) );
+      rendered = true;
+    }
+    if( hasCellCheckableChanged( item, columnCount ) ) {
+      renderProperty( item,
+                      PROP_CELL_CHECKABLE,
+                      getCellCheckable( item ),
+                      getTrueFlags( columnCount ) );
+      rendered = true;
+    }
+    if( rendered && metricsSink != null ) {
+      metricsSink.add( item.getParent(), GridMetricsSink.RENDERED_ITEMS, 1 );
+    }
+  }
+
   ////////////////////////////////////////////
   // Helping methods to read client-side state
 
@@ -187,6 +275,15 @@ public class GridItemLCA extends AbstractWidgetLCA {
     return getGridItemAdapter( item ).isParentDisposed();
   }
 
+  private static boolean isCached( GridItem item ) {
+    return getGridItemAdapter( item ).isCached();
+  }
+
+  private static boolean wasCleared( GridItem item ) {
+    Object wasCached = WidgetUtil.getAdapter( item ).getPreserved( PROP_CACHED );
+    return Boolean.TRUE.equals( wasCached );
+  }
+
   private static String[] getTexts( GridItem item ) {
     String[] result = new String[ getColumnCount( item ) ];
     for( int i = 0; i < result.length; i++ ) {
@@ -195,10 +292,31 @@ public class GridItemLCA extends AbstractWidgetLCA {
     return result;
   }
 
-  private static String[] getDefaultTexts( GridItem item ) {
-    String[] result = new String[ getColumnCount( item ) ];
-    for( int i = 0; i < result.length; i++ ) {
-      result[ i ] = "";
+  private static int getLength( String[] texts ) {
+    int result = 0;
+    for( int i = 0; i < texts.length; i++ ) {
+      result += getUTF8Length( texts[ i ] );
+    }
+    return result;
+  }
+
+  private static int getUTF8Length( String text ) {
+    int result = 0;
+    int length = text.length();
+    for( int i = 0; i < length; i++ ) {
+      char ch = text.charAt( i );
+      if( ch < 0x80 ) {
+        result += 1;
+      } else if( ch < 0x800 ) {
+        result += 2;
+      } else if( Character.isHighSurrogate( ch ) && i + 1 < length
+                 && Character.isLowSurrogate( text.charAt( i + 1 ) ) )
+      {
+        result += 4;
+        i++;
+      } else {
+        result += 3;
+      }
     }
     return result;
   }
@@ -223,16 +341,52 @@ public class GridItemLCA extends AbstractWidgetLCA {
     return item.getAdapter( IWidgetFontAdapter.class ).getUserFont();
   }
 
-  private static Color[] getCellBackgrounds( GridItem item ) {
-    return getGridItemAdapter( item ).getCellBackgrounds();
+  private static Color[] getCellBackgrounds( GridItem item, int columnCount ) {
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    Color[] defaultValue = getNullColors( columnCount );
+    Color[] result = defaultValue;
+    for( int i = 0; i < columnCount; i++ ) {
+      Color background = adapter.getCellBackground( i );
+      if( background != null ) {
+        if( result == defaultValue ) {
+          result = new Color[ columnCount ];
+        }
+        result[ i ] = background;
+      }
+    }
+    return result;
   }
 
-  private static Color[] getCellForegrounds( GridItem item ) {
-    return getGridItemAdapter( item ).getCellForegrounds();
+  private static Color[] getCellForegrounds( GridItem item, int columnCount ) {
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    Color[] defaultValue = getNullColors( columnCount );
+    Color[] result = defaultValue;
+    for( int i = 0; i < columnCount; i++ ) {
+      Color foreground = adapter.getCellForeground( i );
+      if( foreground != null ) {
+        if( result == defaultValue ) {
+          result = new Color[ columnCount ];
+        }
+        result[ i ] = foreground;
+      }
+    }
+    return result;
   }
 
-  private static Font[] getCellFonts( GridItem item ) {
-    return getGridItemAdapter( item ).getCellFonts();
+  private static Font[] getCellFonts( GridItem item, int columnCount ) {
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    Font[] defaultValue = getNullFonts( columnCount );
+    Font[] result = defaultValue;
+    for( int i = 0; i < columnCount; i++ ) {
+      Font font = adapter.getCellFont( i );
+      if( font != null ) {
+        if( result == defaultValue ) {
+          result = new Font[ columnCount ];
+        }
+        result[ i ] = font;
+      }
+    }
+    return result;
   }
 
   private static boolean[] getCellChecked( GridItem item ) {
@@ -259,14 +413,109 @@ public class GridItemLCA extends AbstractWidgetLCA {
     return result;
   }
 
-  private static boolean[] getDefaultCellCheckable( GridItem item ) {
-    boolean[] result = new boolean[ getColumnCount( item ) ];
-    for( int i = 0; i < result.length; i++ ) {
-      result[ i ] = true;
+  ////////////////////////////////////////////////////////
+  // Helping methods to detect changes without allocations
+
+  private static boolean hasTextsChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_TEXTS, getEmptyStrings( columnCount ) );
+    boolean result = !( oldValue instanceof String[] )
+                     || ( ( String[] )oldValue ).length != columnCount;
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !equals( ( ( String[] )oldValue )[ i ], item.getText( i ) );
+    }
+    return result;
+  }
+
+  private static boolean hasImagesChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_IMAGES, getNullImages( columnCount ) );
+    boolean result = !( oldValue instanceof Image[] )
+                     || ( ( Image[] )oldValue ).length != columnCount;
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !equals( ( ( Image[] )oldValue )[ i ], item.getImage( i ) );
+    }
+    return result;
+  }
+
+  private static boolean hasUserStyleChanged( GridItem item ) {
+    return    WidgetLCAUtil.hasChanged( item, PROP_BACKGROUND, getUserBackground( item ), null )
+           || WidgetLCAUtil.hasChanged( item, PROP_FOREGROUND, getUserForeground( item ), null )
+           || WidgetLCAUtil.hasChanged( item, PROP_FONT, getUserFont( item ), null );
+  }
+
+  private static boolean hasCellBackgroundsChanged( GridItem item, int columnCount ) {
+    Color[] defaultValue = getNullColors( columnCount );
+    Object oldValue = getPreservedValue( item, PROP_CELL_BACKGROUNDS, defaultValue );
+    boolean result = !( oldValue instanceof Color[] )
+                     || ( ( Color[] )oldValue ).length != columnCount;
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !equals( ( ( Color[] )oldValue )[ i ], adapter.getCellBackground( i ) );
+    }
+    return result;
+  }
+
+  private static boolean hasCellForegroundsChanged( GridItem item, int columnCount ) {
+    Color[] defaultValue = getNullColors( columnCount );
+    Object oldValue = getPreservedValue( item, PROP_CELL_FOREGROUNDS, defaultValue );
+    boolean result = !( oldValue instanceof Color[] )
+                     || ( ( Color[] )oldValue ).length != columnCount;
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !equals( ( ( Color[] )oldValue )[ i ], adapter.getCellForeground( i ) );
     }
     return result;
   }
 
+  private static boolean hasCellFontsChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_CELL_FONTS, getNullFonts( columnCount ) );
+    boolean result = !( oldValue instanceof Font[] )
+                     || ( ( Font[] )oldValue ).length != columnCount;
+    IGridItemAdapter adapter = getGridItemAdapter( item );
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !equals( ( ( Font[] )oldValue )[ i ], adapter.getCellFont( i ) );
+    }
+    return result;
+  }
+
+  private static boolean hasCellCheckedChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_CELL_CHECKED, getFalseFlags( columnCount ) );
+    boolean result = !( oldValue instanceof boolean[] )
+                     || ( ( boolean[] )oldValue ).length != columnCount;
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = ( ( boolean[] )oldValue )[ i ] != item.getChecked( i );
+    }
+    return result;
+  }
+
+  private static boolean hasCellGrayedChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_CELL_GRAYED, getFalseFlags( columnCount ) );
+    boolean result = !( oldValue instanceof boolean[] )
+                     || ( ( boolean[] )oldValue ).length != columnCount;
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = ( ( boolean[] )oldValue )[ i ] != item.getGrayed( i );
+    }
+    return result;
+  }
+
+  private static boolean hasCellCheckableChanged( GridItem item, int columnCount ) {
+    Object oldValue = getPreservedValue( item, PROP_CELL_CHECKABLE, getTrueFlags( columnCount ) );
+    boolean result = !( oldValue instanceof boolean[] )
+                     || ( ( boolean[] )oldValue ).length != columnCount;
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = ( ( boolean[] )oldValue )[ i ] != item.getCheckable( i );
+    }
+    return result;
+  }
+
+  private static Object getPreservedValue( GridItem item, String property, Object defaultValue ) {
+    WidgetAdapter adapter = WidgetUtil.getAdapter( item );
+    return adapter.isInitialized() ? adapter.getPreserved( property ) : defaultValue;
+  }
+
+  private static boolean equals( Object object1, Object object2 ) {
+    return object1 == null ? object2 == null : object1.equals( object2 );
+  }
+
   private static int getColumnCount( GridItem item ) {
     return Math.max( 1, item.getParent().getColumnCount() );
   }
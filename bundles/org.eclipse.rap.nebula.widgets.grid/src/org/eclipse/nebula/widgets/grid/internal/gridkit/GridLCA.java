@@ -35,6 +35,9 @@ import java.io.IOException;
 import org.eclipse.nebula.widgets.grid.Grid;
 import org.eclipse.nebula.widgets.grid.GridColumn;
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.GridMetricsSink;
+import org.eclipse.nebula.widgets.grid.GridTraceEvent;
+import org.eclipse.nebula.widgets.grid.GridTraceListener;
 import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.rap.json.JsonArray;
 import org.eclipse.rap.rwt.RWT;
@@ -136,7 +139,52 @@ public class GridLCA extends AbstractWidgetLCA {
   @Override
   public void preserveValues( Widget widget ) {
     Grid grid = ( Grid )widget;
-    ControlLCAUtil.preserveValues( ( Control )widget );
+    if( !isMeasured( grid ) ) {
+      preserveGridValues( grid );
+    } else {
+      long start = System.nanoTime();
+      preserveGridValues( grid );
+      long duration = System.nanoTime() - start;
+      report( grid, GridMetricsSink.PRESERVE_NANOS, GridTraceEvent.PRESERVE, duration );
+    }
+  }
+
+  @Override
+  public void renderChanges( Widget widget ) throws IOException {
+    Grid grid = ( Grid )widget;
+    if( !isMeasured( grid ) ) {
+      renderGridChanges( grid );
+    } else {
+      long start = System.nanoTime();
+      renderGridChanges( grid );
+      long duration = System.nanoTime() - start;
+      report( grid, GridMetricsSink.RENDER_NANOS, GridTraceEvent.RENDER, duration );
+    }
+  }
+
+  private static boolean isMeasured( Grid grid ) {
+    IGridAdapter adapter = getGridAdapter( grid );
+    return adapter.getMetricsSink() != null || adapter.getTraceListener() != null;
+  }
+
+  private static void report( Grid grid, String metric, String operation, long duration ) {
+    IGridAdapter adapter = getGridAdapter( grid );
+    GridMetricsSink metricsSink = adapter.getMetricsSink();
+    if( metricsSink != null ) {
+      metricsSink.add( grid, metric, duration );
+    }
+    GridTraceListener traceListener = adapter.getTraceListener();
+    if( traceListener != null ) {
+      int rowCount = grid.getItemCount();
+      int columnCount = grid.getColumnCount();
+      GridTraceEvent event
+        = new GridTraceEvent( grid, operation, duration, rowCount, columnCount );
+      traceListener.operationTraced( event );
+    }
+  }
+
+  private static void preserveGridValues( Grid grid ) {
+    ControlLCAUtil.preserveValues( grid );
     WidgetLCAUtil.preserveCustomVariant( grid );
     preserveProperty( grid, PROP_ITEM_COUNT, grid.getRootItemCount() );
     preserveProperty( grid, PROP_ITEM_HEIGHT, grid.getItemHeight() );
@@ -166,9 +214,8 @@ public class GridLCA extends AbstractWidgetLCA {
     ScrollBarLCAUtil.preserveValues( grid );
   }
 
-  @Override
-  public void renderChanges( Widget widget ) throws IOException {
-    Grid grid = ( Grid )widget;
+  private static void renderGridChanges( Grid grid ) throws IOException {
+    getGridAdapter( grid ).checkData();
     ControlLCAUtil.renderChanges( grid );
     WidgetLCAUtil.renderCustomVariant( grid );
     renderProperty( grid, PROP_ITEM_COUNT, grid.getRootItemCount(), ZERO );
@@ -280,7 +327,12 @@ public class GridLCA extends AbstractWidgetLCA {
   // Helping methods
 
   private static boolean listensToSetData( Grid grid ) {
-    return ( grid.getStyle() & SWT.VIRTUAL ) != 0;
+    return ( grid.getStyle() & SWT.VIRTUAL ) != 0 || isRenderedProgressively( grid );
+  }
+
+  private static boolean isRenderedProgressively( Grid grid ) {
+    Object chunkSize = grid.getData( Grid.RENDER_CHUNK_SIZE );
+    return chunkSize instanceof Integer && ( ( Integer )chunkSize ).intValue() > 0;
   }
 
   private static boolean isMarkupEnabled( Grid grid ) {
@@ -344,7 +396,7 @@ public class GridLCA extends AbstractWidgetLCA {
   }
 
   private static GridItem getItem( Grid grid, String itemId ) {
-    return ( GridItem )WidgetUtil.find( grid, itemId );
+    return getGridAdapter( grid ).getItem( itemId );
   }
 
   private static void processScrollBarSelection( ScrollBar scrollBar, int selection ) {
@@ -400,8 +452,8 @@ public class GridLCA extends AbstractWidgetLCA {
   // Item Metrics
 
   private static void renderItemMetrics( Grid grid ) {
-    ItemMetrics[] itemMetrics = getItemMetrics( grid );
-    if( WidgetLCAUtil.hasChanged( grid, PROP_ITEM_METRICS, itemMetrics ) ) {
+    if( hasItemMetricsChanged( grid ) ) {
+      ItemMetrics[] itemMetrics = getItemMetrics( grid );
       JsonArray metrics = new JsonArray();
       for( int i = 0; i < itemMetrics.length; i++ ) {
         metrics.add( new JsonArray().add( i )
@@ -436,6 +488,18 @@ public class GridLCA extends AbstractWidgetLCA {
     return result;
   }
 
+  private static boolean hasItemMetricsChanged( Grid grid ) {
+    Object oldValue = WidgetUtil.getAdapter( grid ).getPreserved( PROP_ITEM_METRICS );
+    int columnCount = grid.getColumnCount();
+    boolean result = !( oldValue instanceof ItemMetrics[] )
+                     || ( ( ItemMetrics[] )oldValue ).length != columnCount;
+    IGridAdapter adapter = getGridAdapter( grid );
+    for( int i = 0; !result && i < columnCount; i++ ) {
+      result = !( ( ItemMetrics[] )oldValue )[ i ].matches( adapter, i );
+    }
+    return result;
+  }
+
   private static IGridAdapter getGridAdapter( Grid grid ) {
     return grid.getAdapter( IGridAdapter.class );
   }
@@ -453,6 +517,18 @@ public class GridLCA extends AbstractWidgetLCA {
     int textLeft;
     int textWidth;
 
+    boolean matches( IGridAdapter adapter, int index ) {
+      int cellLeft = adapter.getCellLeft( index );
+      return    left == cellLeft
+             && width == adapter.getCellWidth( index )
+             && checkLeft == cellLeft + adapter.getCheckBoxOffset( index )
+             && checkWidth == adapter.getCheckBoxWidth( index )
+             && imageLeft == cellLeft + adapter.getImageOffset( index )
+             && imageWidth == adapter.getImageWidth( index )
+             && textLeft == cellLeft + adapter.getTextOffset( index )
+             && textWidth == adapter.getTextWidth( index );
+    }
+
     @Override
     public boolean equals( Object obj ) {
       boolean result;
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridColumns;
+
+import junit.framework.TestCase;
+
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+
+public class ColumnarGridDataSource_Test extends TestCase {
+
+  private ColumnarGridDataSource.Builder builder;
+
+  @Override
+  protected void setUp() throws Exception {
+    builder = new ColumnarGridDataSource.Builder( 2, true );
+  }
+
+  public void testGetRowCount() {
+    builder.addRow( new String[] { "a", "b" } );
+    builder.addRow( new String[] { "c", "d" } );
+
+    assertEquals( 2, builder.build().getRowCount() );
+  }
+
+  public void testGetText() {
+    builder.addRow( new String[] { "a", "b" } );
+    builder.addRow( new String[] { "c", "d" } );
+
+    GridDataSource dataSource = builder.build();
+
+    assertEquals( "a", dataSource.getText( 0, 0 ) );
+    assertEquals( "d", dataSource.getText( 1, 1 ) );
+  }
+
+  public void testGetText_NonAscii() {
+    builder.addRow( new String[] { "äöü € 日本", "b" } );
+
+    GridDataSource dataSource = builder.build();
+
+    assertEquals( "äöü € 日本", dataSource.getText( 0, 0 ) );
+  }
+
+  public void testGetText_EmptyCells() {
+    builder.addRow( new String[] { null, "" } );
+    builder.addRow( new String[] { "c" } );
+
+    GridDataSource dataSource = builder.build();
+
+    assertNull( dataSource.getText( 0, 0 ) );
+    assertNull( dataSource.getText( 0, 1 ) );
+    assertNull( dataSource.getText( 1, 1 ) );
+  }
+
+  public void testGetText_ColumnOutOfRange() {
+    builder.addRow( new String[] { "a", "b", "c" } );
+
+    assertNull( builder.build().getText( 0, 2 ) );
+  }
+
+  public void testGetText_SeveralSegments() {
+    builder = new ColumnarGridDataSource.Builder( 1, false );
+    for( int i = 0; i < 150000; i++ ) {
+      builder.addRow( new String[] { "row " + i } );
+    }
+
+    GridDataSource dataSource = builder.build();
+
+    assertEquals( 150000, dataSource.getRowCount() );
+    assertEquals( "row 65535", dataSource.getText( 65535, 0 ) );
+    assertEquals( "row 65536", dataSource.getText( 65536, 0 ) );
+    assertEquals( "row 149999", dataSource.getText( 149999, 0 ) );
+  }
+
+  public void testGetText_SharesTextsOfFewDistinctValues() {
+    builder.addRow( new String[] { "open", null } );
+    builder.addRow( new String[] { "closed", null } );
+    builder.addRow( new String[] { "open", null } );
+
+    GridDataSource dataSource = builder.build();
+
+    assertSame( dataSource.getText( 0, 0 ), dataSource.getText( 2, 0 ) );
+    assertEquals( "closed", dataSource.getText( 1, 0 ) );
+    assertNull( dataSource.getText( 1, 1 ) );
+  }
+
+  public void testGetText_ManyDistinctValues() {
+    builder = new ColumnarGridDataSource.Builder( 1, false );
+    for( int i = 0; i < 10000; i++ ) {
+      builder.addRow( new String[] { "row " + i % 5000 } );
+    }
+
+    GridDataSource dataSource = builder.build();
+
+    assertEquals( "row 4999", dataSource.getText( 4999, 0 ) );
+    assertEquals( "row 1", dataSource.getText( 5001, 0 ) );
+  }
+
+  public void testGetText_RowsBeforeTooManyDistinctValues() {
+    builder = new ColumnarGridDataSource.Builder( 1, true );
+    builder.addRow( new String[] { "open" } );
+    builder.addRow( new String[] { null } );
+    for( int i = 0; i < 5000; i++ ) {
+      builder.addRow( new String[] { "row " + i } );
+    }
+
+    GridDataSource dataSource = builder.build();
+
+    assertEquals( "open", dataSource.getText( 0, 0 ) );
+    assertNull( dataSource.getText( 1, 0 ) );
+    assertEquals( "row 0", dataSource.getText( 2, 0 ) );
+    assertEquals( "row 4999", dataSource.getText( 5001, 0 ) );
+  }
+
+  public void testBuilder_NegativeColumnCount() {
+    try {
+      new ColumnarGridDataSource.Builder( -1, true );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testAddRow_NullTexts() {
+    try {
+      builder.addRow( null );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testAddRow_AfterBuild() {
+    builder.build();
+
+    try {
+      builder.addRow( new String[] { "a" } );
+      fail();
+    } catch( IllegalStateException expected ) {
+    }
+  }
+
+  public void testGridReadsTexts() {
+    Fixture.setUp();
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    try {
+      Grid grid = new Grid( new Shell( new Display() ), SWT.NONE );
+      createGridColumns( grid, 2, SWT.NONE );
+      builder.addRow( new String[] { "a", "b" } );
+
+      grid.setData( Grid.DATA_SOURCE, builder.build() );
+
+      assertEquals( 1, grid.getItemCount() );
+      assertEquals( "b", grid.getItem( 0 ).getText( 1 ) );
+    } finally {
+      Fixture.tearDown();
+    }
+  }
+
+}
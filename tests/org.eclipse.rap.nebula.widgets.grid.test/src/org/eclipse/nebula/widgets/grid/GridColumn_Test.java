@@ -19,6 +19,7 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.eclipse.nebula.widgets.grid.internal.TextDictionary;
 import org.eclipse.rap.rwt.internal.service.ContextProvider;
 import org.eclipse.rap.rwt.internal.service.ServiceStore;
 import org.eclipse.rap.rwt.lifecycle.PhaseId;
@@ -835,6 +836,97 @@ public class GridColumn_Test extends TestCase {
     assertFalse( column.isVisible() );
   }
 
+  public void testDictionaryEncoding_InvalidValue() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+
+    try {
+      column.setData( GridColumn.DICTIONARY_ENCODING, "foo" );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testDictionaryEncoding_SharesEqualTexts() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+    GridItem[] items = createGridItems( grid, 3, 0 );
+
+    items[ 0 ].setText( new String( "open" ) );
+    items[ 1 ].setText( new String( "closed" ) );
+    items[ 2 ].setText( new String( "open" ) );
+
+    assertSame( items[ 0 ].getText(), items[ 2 ].getText() );
+    assertEquals( "closed", items[ 1 ].getText() );
+    assertEquals( 2, column.getTextDictionary().size() );
+  }
+
+  public void testDictionaryEncoding_EncodesExistingTexts() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    GridItem[] items = createGridItems( grid, 2, 0 );
+    items[ 0 ].setText( new String( "open" ) );
+    items[ 1 ].setText( new String( "open" ) );
+
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+
+    assertSame( items[ 0 ].getText(), items[ 1 ].getText() );
+  }
+
+  public void testDictionaryEncoding_OnlyForOwnColumn() {
+    createGridColumns( grid, 2, SWT.NONE );
+    grid.getColumn( 0 ).setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+    GridItem[] items = createGridItems( grid, 2, 0 );
+
+    items[ 0 ].setText( 1, new String( "open" ) );
+    items[ 1 ].setText( 1, new String( "open" ) );
+
+    assertNotSame( items[ 0 ].getText( 1 ), items[ 1 ].getText( 1 ) );
+  }
+
+  public void testDictionaryEncoding_Disable() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+
+    column.setData( GridColumn.DICTIONARY_ENCODING, null );
+
+    assertNull( column.getTextDictionary() );
+  }
+
+  public void testDictionaryEncoding_IsBounded() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+    GridItem item = new GridItem( grid, SWT.NONE );
+
+    for( int i = 0; i <= TextDictionary.MAX_SIZE; i++ ) {
+      item.setText( "text " + i );
+    }
+
+    assertEquals( TextDictionary.MAX_SIZE, column.getTextDictionary().size() );
+    assertEquals( "text " + TextDictionary.MAX_SIZE, item.getText() );
+  }
+
+  public void testDictionaryEncoding_ClearedByRemoveAll() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+    GridItem[] items = createGridItems( grid, 2, 0 );
+    items[ 0 ].setText( "open" );
+    items[ 1 ].setText( "closed" );
+
+    grid.removeAll();
+
+    assertEquals( 0, column.getTextDictionary().size() );
+  }
+
+  public void testDictionaryEncoding_DroppedOnDispose() {
+    GridColumn column = new GridColumn( grid, SWT.NONE );
+    column.setData( GridColumn.DICTIONARY_ENCODING, Boolean.TRUE );
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.setText( "open" );
+
+    column.dispose();
+
+    assertNull( column.getTextDictionary() );
+  }
+
   //////////////////
   // Helping methods
 
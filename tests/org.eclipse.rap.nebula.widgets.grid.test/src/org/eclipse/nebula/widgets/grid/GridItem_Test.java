@@ -20,6 +20,7 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.rap.rwt.lifecycle.PhaseId;
 import org.eclipse.rap.rwt.testfixture.Fixture;
 import org.eclipse.swt.SWT;
@@ -123,6 +124,39 @@ public class GridItem_Test extends TestCase {
     assertEquals( 9, grid.getItem( 0 ).getItemCount() );
   }
 
+  public void testSetItemCount_MoreItems() {
+    GridItem[] items = createGridItems( grid, 2, 1 );
+
+    items[ 0 ].setItemCount( 3 );
+
+    assertEquals( 3, items[ 0 ].getItemCount() );
+    assertEquals( 6, grid.getItemCount() );
+    assertSame( items[ 1 ], items[ 0 ].getItem( 0 ) );
+    assertSame( items[ 0 ].getItem( 2 ), grid.getItem( 3 ) );
+    assertSame( items[ 2 ], grid.getItem( 4 ) );
+  }
+
+  public void testSetItemCount_LessItems() {
+    GridItem[] items = createGridItems( grid, 2, 5 );
+
+    items[ 0 ].setItemCount( 2 );
+
+    assertEquals( 2, items[ 0 ].getItemCount() );
+    assertEquals( 9, grid.getItemCount() );
+    assertTrue( items[ 3 ].isDisposed() );
+    assertSame( items[ 6 ], grid.getItem( 3 ) );
+  }
+
+  public void testSetItemCount_NewItemsIndex() {
+    GridItem[] items = createGridItems( grid, 2, 1 );
+
+    items[ 0 ].setItemCount( 3 );
+
+    GridItem newItem = items[ 0 ].getItem( 2 );
+    assertEquals( 2, items[ 0 ].indexOf( newItem ) );
+    assertEquals( 3, grid.indexOf( newItem ) );
+  }
+
   public void testGetItems() {
     GridItem[] items = createGridItems( grid, 1, 10 );
     GridItem[] expected = new GridItem[ 10 ];
@@ -864,6 +898,59 @@ public class GridItem_Test extends TestCase {
     assertTrue( grid.getItemHeight() != item.getHeight() );
   }
 
+  public void testPack_SingleLineText() {
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.setText( "foo" );
+
+    item.pack();
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    assertEquals( 27, item.getHeight() );
+  }
+
+  public void testPack_IsDeferredUntilRedraw() {
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.setText( "foo\nbar" );
+
+    item.pack();
+
+    assertEquals( 27, item.getHeight() );
+  }
+
+  public void testPack_MultiLineText() {
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.setText( "foo\nbar" );
+
+    item.pack();
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    assertTrue( item.getHeight() > 27 );
+  }
+
+  public void testPack_UpdatesHeightOnTextChange() {
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.setText( "foo\nbar" );
+    item.pack();
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    item.setText( "foo" );
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    assertEquals( 27, item.getHeight() );
+  }
+
+  public void testPack_SetHeightStopsPacking() {
+    GridItem item = new GridItem( grid, SWT.NONE );
+    item.pack();
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    item.setHeight( 40 );
+    item.setText( "foo\nbar" );
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    assertEquals( 40, item.getHeight() );
+  }
+
   public void testGetCellSize_WithoutSpan() {
     createGridColumns( grid, 5, SWT.NONE );
     createGridItems( grid, 5, 5 );
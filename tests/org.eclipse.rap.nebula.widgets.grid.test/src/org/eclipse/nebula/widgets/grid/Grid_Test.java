@@ -13,10 +13,18 @@ package org.eclipse.nebula.widgets.grid;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridColumns;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridItems;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.loadImage;
+import static org.eclipse.rap.rwt.lifecycle.WidgetUtil.getId;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -39,6 +47,7 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.internal.widgets.ICellToolTipAdapter;
+import org.eclipse.swt.internal.widgets.ICellToolTipProvider;
 import org.eclipse.swt.internal.widgets.IItemHolderAdapter;
 import org.eclipse.swt.internal.widgets.MarkupValidator;
 import org.eclipse.swt.widgets.Display;
@@ -264,6 +273,24 @@ public class Grid_Test extends TestCase {
     assertEquals( 2, grid.indexOf( items[ 4 ] ) );
   }
 
+  public void testIndexOf_AfterInsert() {
+    GridItem[] items = createGridItems( grid, 3, 1 );
+    grid.indexOf( items[ 4 ] );
+
+    new GridItem( grid, SWT.NONE, 0 );
+
+    assertEquals( 5, grid.indexOf( items[ 4 ] ) );
+  }
+
+  public void testIndexOf_AfterDisposeOfPrecedingItem() {
+    GridItem[] items = createGridItems( grid, 3, 1 );
+    grid.indexOf( items[ 4 ] );
+
+    items[ 0 ].dispose();
+
+    assertEquals( 2, grid.indexOf( items[ 4 ] ) );
+  }
+
   public void testGetColumnCount() {
     createGridColumns( grid, 5, SWT.NONE );
 
@@ -546,6 +573,50 @@ public class Grid_Test extends TestCase {
     }
   }
 
+  public void testSetTexts() {
+    createGridColumns( grid, 2, SWT.NONE );
+    GridItem[] items = createGridItems( grid, 4, 0 );
+
+    grid.setTexts( 1, 1, new String[] { "foo", "bar" } );
+
+    assertEquals( "", items[ 0 ].getText( 1 ) );
+    assertEquals( "foo", items[ 1 ].getText( 1 ) );
+    assertEquals( "bar", items[ 2 ].getText( 1 ) );
+    assertEquals( "", items[ 3 ].getText( 1 ) );
+    assertEquals( "", items[ 1 ].getText( 0 ) );
+  }
+
+  public void testSetTexts_NullArgument() {
+    createGridItems( grid, 3, 0 );
+
+    try {
+      grid.setTexts( 0, 0, null );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testSetTexts_NullText() {
+    GridItem[] items = createGridItems( grid, 3, 0 );
+
+    try {
+      grid.setTexts( 0, 0, new String[] { "foo", null } );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+    assertEquals( "", items[ 0 ].getText() );
+  }
+
+  public void testSetTexts_InvalidRange() {
+    createGridItems( grid, 3, 0 );
+
+    try {
+      grid.setTexts( 0, 2, new String[] { "foo", "bar" } );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
   public void testSendSetDataEventAfterClear() {
     grid = new Grid( shell, SWT.VIRTUAL );
     GridItem[] items = createGridItems( grid, 3, 3 );
@@ -1229,6 +1300,61 @@ public class Grid_Test extends TestCase {
     }
   }
 
+  public void testRemoveItems() {
+    GridItem[] items = createGridItems( grid, 3, 3 );
+
+    grid.removeItems( new GridItem[] { items[ 4 ], items[ 9 ], items[ 10 ] } );
+
+    assertEquals( 6, grid.getItemCount() );
+    assertEquals( 2, grid.getRootItemCount() );
+    assertTrue( items[ 4 ].isDisposed() );
+    assertTrue( items[ 5 ].isDisposed() );
+    assertTrue( items[ 9 ].isDisposed() );
+    assertEquals( 1, items[ 8 ].getItemCount() );
+    assertSame( items[ 11 ], items[ 8 ].getItem( 0 ) );
+    assertEquals( 5, grid.indexOf( items[ 11 ] ) );
+  }
+
+  public void testRemoveItems_ItemAndDescendant() {
+    GridItem[] items = createGridItems( grid, 3, 3 );
+
+    grid.removeItems( new GridItem[] { items[ 5 ], items[ 4 ] } );
+
+    assertEquals( 8, grid.getItemCount() );
+    assertEquals( 2, grid.getRootItemCount() );
+    assertTrue( items[ 5 ].isDisposed() );
+  }
+
+  public void testRemoveItems_UpdatesSelection() {
+    grid = new Grid( shell, SWT.MULTI );
+    GridItem[] items = createGridItems( grid, 3, 3 );
+    grid.setSelection( new GridItem[] { items[ 0 ], items[ 5 ], items[ 8 ] } );
+
+    grid.removeItems( new GridItem[] { items[ 4 ] } );
+
+    assertTrue( Arrays.equals( new GridItem[] { items[ 0 ], items[ 8 ] }, grid.getSelection() ) );
+  }
+
+  public void testRemoveItems_NullArgument() {
+    try {
+      grid.removeItems( null );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testRemoveItems_DisposedItem() {
+    GridItem[] items = createGridItems( grid, 3, 0 );
+    items[ 1 ].dispose();
+
+    try {
+      grid.removeItems( new GridItem[] { items[ 0 ], items[ 1 ] } );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+    assertEquals( 2, grid.getItemCount() );
+  }
+
   public void testRemoveAll() {
     createGridItems( grid, 3, 3 );
 
@@ -2322,6 +2448,36 @@ public class Grid_Test extends TestCase {
     assertNotNull( grid.getAdapter( IGridAdapter.class ) );
   }
 
+  public void testIGridAdapter_GetItem() {
+    GridItem[] items = createGridItems( grid, 3, 3 );
+
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+
+    assertSame( items[ 0 ], adapter.getItem( getId( items[ 0 ] ) ) );
+    assertSame( items[ 5 ], adapter.getItem( getId( items[ 5 ] ) ) );
+  }
+
+  public void testIGridAdapter_GetItem_UnknownId() {
+    createGridItems( grid, 3, 0 );
+
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+
+    assertNull( adapter.getItem( "w123" ) );
+    assertNull( adapter.getItem( null ) );
+  }
+
+  public void testIGridAdapter_GetItem_DisposedItem() {
+    GridItem[] items = createGridItems( grid, 3, 3 );
+    String itemId = getId( items[ 4 ] );
+    String childId = getId( items[ 5 ] );
+
+    items[ 4 ].dispose();
+
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    assertNull( adapter.getItem( itemId ) );
+    assertNull( adapter.getItem( childId ) );
+  }
+
   public void testGetAdapter_IItemHolderAdapter() {
     assertNotNull( grid.getAdapter( IItemHolderAdapter.class ) );
   }
@@ -2338,6 +2494,537 @@ public class Grid_Test extends TestCase {
     assertSame( item, items[ 2 ] );
   }
 
+  public void testSetRenderChunkSize_InvalidValue() {
+    try {
+      grid.setData( Grid.RENDER_CHUNK_SIZE, "foo" );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testSetRenderChunkSize_NegativeValue() {
+    try {
+      grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( -1 ) );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testRenderChunkSize_RendersVisibleItemsFirst() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    List<Item> renderedItems = getRenderedItems();
+    assertTrue( renderedItems.contains( items[ 0 ] ) );
+    assertFalse( renderedItems.contains( items[ 99 ] ) );
+    assertTrue( renderedItems.size() < 100 );
+  }
+
+  public void testRenderChunkSize_RendersSelectedItem() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    grid.setSelection( 90 );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    assertTrue( getRenderedItems().contains( items[ 90 ] ) );
+  }
+
+  public void testRenderChunkSize_RendersParentOfVisibleItem() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 10, 10 );
+    items[ 88 ].setExpanded( true );
+    grid.setFocusItem( items[ 90 ] );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    List<Item> renderedItems = getRenderedItems();
+    assertTrue( renderedItems.contains( items[ 88 ] ) );
+    assertTrue( renderedItems.indexOf( items[ 88 ] ) < renderedItems.indexOf( items[ 90 ] ) );
+  }
+
+  public void testRenderChunkSize_RendersNextChunk() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    createGridItems( grid, 100, 0 );
+    grid.getAdapter( IGridAdapter.class ).checkData();
+    int renderedCount = getRenderedItems().size();
+
+    while( display.readAndDispatch() ) {
+    }
+
+    assertEquals( renderedCount + 10, getRenderedItems().size() );
+  }
+
+  public void testRenderChunkSize_Reset() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    createGridItems( grid, 100, 0 );
+
+    grid.setData( Grid.RENDER_CHUNK_SIZE, null );
+
+    assertEquals( 100, getRenderedItems().size() );
+  }
+
+  public void testRenderChunkSize_DisposeUnrenderedItem() {
+    grid.setData( Grid.RENDER_CHUNK_SIZE, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+
+    items[ 99 ].dispose();
+    grid.setData( Grid.RENDER_CHUNK_SIZE, null );
+
+    assertEquals( 99, getRenderedItems().size() );
+  }
+
+  public void testCheckData_ResolvesVisibleVirtualItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    assertTrue( items[ 0 ].isResolved() );
+    assertTrue( items[ grid.getBottomIndex() ].isResolved() );
+    assertFalse( items[ grid.getBottomIndex() + 1 ].isResolved() );
+  }
+
+  public void testSetPrefetchItemCount_InvalidValue() {
+    try {
+      grid.setData( Grid.PREFETCH_ITEM_COUNT, Boolean.TRUE );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testCheckData_PrefetchesItemsInScrollDirection() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.PREFETCH_ITEM_COUNT, Integer.valueOf( 20 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    adapter.checkData();
+
+    grid.setTopIndex( 50 );
+    adapter.checkData();
+
+    int bottomIndex = grid.getBottomIndex();
+    assertTrue( items[ bottomIndex + 20 ].isResolved() );
+    assertFalse( items[ bottomIndex + 21 ].isResolved() );
+    assertFalse( items[ 49 ].isResolved() );
+  }
+
+  public void testCheckData_PrefetchesItemsAboveWhenScrollingUp() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.PREFETCH_ITEM_COUNT, Integer.valueOf( 20 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    grid.setTopIndex( 80 );
+    adapter.checkData();
+
+    grid.setTopIndex( 60 );
+    adapter.checkData();
+
+    assertTrue( items[ 40 ].isResolved() );
+    assertFalse( items[ 39 ].isResolved() );
+  }
+
+  public void testCheckData_PrefetchRespectsByteLimit() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.PREFETCH_ITEM_COUNT, Integer.valueOf( 20 ) );
+    grid.setData( Grid.PREFETCH_BYTE_LIMIT, Integer.valueOf( 1 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    adapter.checkData();
+
+    grid.setTopIndex( 50 );
+    adapter.checkData();
+
+    int bottomIndex = grid.getBottomIndex();
+    assertTrue( items[ bottomIndex + 1 ].isResolved() );
+    assertFalse( items[ bottomIndex + 2 ].isResolved() );
+  }
+
+  public void testResolvedItemLimit_ClearsLeastRecentlyViewedItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.RESOLVED_ITEM_LIMIT, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    adapter.checkData();
+
+    grid.setTopIndex( 50 );
+    adapter.checkData();
+
+    assertFalse( items[ 0 ].isResolved() );
+    assertTrue( items[ 50 ].isResolved() );
+  }
+
+  public void testResolvedItemLimit_KeepsVisibleItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.RESOLVED_ITEM_LIMIT, Integer.valueOf( 1 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    assertTrue( items[ 0 ].isResolved() );
+    assertTrue( items[ grid.getBottomIndex() ].isResolved() );
+  }
+
+  public void testResolvedItemLimit_KeepsSelectedItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.RESOLVED_ITEM_LIMIT, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    adapter.checkData();
+    grid.setSelection( 0 );
+
+    grid.setTopIndex( 50 );
+    adapter.checkData();
+
+    assertTrue( items[ 0 ].isResolved() );
+    assertFalse( items[ 1 ].isResolved() );
+  }
+
+  public void testResolvedItemLimit_KeepsEditedItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setData( Grid.RESOLVED_ITEM_LIMIT, Integer.valueOf( 10 ) );
+    GridItem[] items = createGridItems( grid, 100, 0 );
+    IGridAdapter adapter = grid.getAdapter( IGridAdapter.class );
+    adapter.checkData();
+    GridEditor editor = new GridEditor( grid );
+    editor.setItem( items[ 0 ] );
+
+    grid.setTopIndex( 50 );
+    adapter.checkData();
+
+    assertTrue( items[ 0 ].isResolved() );
+    assertFalse( items[ 1 ].isResolved() );
+  }
+
+  public void testMetricsSink_InvalidValue() {
+    try {
+      grid.setData( Grid.METRICS_SINK, "foo" );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testMetricsSink_ReportsExistingItems() {
+    createGridItems( grid, 3, 1 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    verify( metricsSink ).add( grid, GridMetricsSink.ITEMS_CREATED, 6 );
+  }
+
+  public void testMetricsSink_ReportsItemsDisposedWhenDetached() {
+    createGridItems( grid, 3, 0 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    grid.setData( Grid.METRICS_SINK, null );
+
+    verify( metricsSink ).add( grid, GridMetricsSink.ITEMS_DISPOSED, 3 );
+  }
+
+  public void testMetricsSink_CountsCreatedItems() {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    new GridItem( grid, SWT.NONE );
+
+    verify( metricsSink ).add( grid, GridMetricsSink.ITEMS_CREATED, 1 );
+  }
+
+  public void testMetricsSink_CountsDisposedItems() {
+    GridItem[] items = createGridItems( grid, 3, 0 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    items[ 1 ].dispose();
+
+    verify( metricsSink ).add( grid, GridMetricsSink.ITEMS_DISPOSED, 1 );
+  }
+
+  public void testMetricsSink_CountsItemsOfDisposedGrid() {
+    createGridItems( grid, 3, 1 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    grid.dispose();
+
+    verify( metricsSink ).add( grid, GridMetricsSink.ITEMS_DISPOSED, 6 );
+  }
+
+  public void testMetricsSink_CountsResolvedItems() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setItemCount( 100 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    verify( metricsSink, atLeastOnce() ).add( grid, GridMetricsSink.ITEMS_RESOLVED, 1 );
+    verify( metricsSink, atLeastOnce() )
+      .add( same( grid ), eq( GridMetricsSink.SET_DATA_NANOS ), anyLong() );
+  }
+
+  public void testMetricsSink_CountsPackMeasurements() {
+    GridItem[] items = createGridItems( grid, 3, 0 );
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    items[ 0 ].pack();
+    grid.getAdapter( IGridAdapter.class ).doRedraw();
+
+    verify( metricsSink, atLeastOnce() ).add( grid, GridMetricsSink.PACK_MEASUREMENTS, 1 );
+  }
+
+  public void testMetricsSink_NotNotifiedWhenDetached() {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+    grid.setData( Grid.METRICS_SINK, null );
+
+    new GridItem( grid, SWT.NONE );
+
+    verify( metricsSink, never() ).add( grid, GridMetricsSink.ITEMS_CREATED, 1 );
+  }
+
+  public void testClearResolvedItems_ClearsOnlyResolvedItems() {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    grid.setItemCount( 100 );
+    grid.addListener( SWT.SetData, new Listener() {
+      public void handleEvent( Event event ) {
+        ( ( GridItem )event.item ).setText( "resolved" );
+      }
+    } );
+    GridItem resolvedItem = grid.getItem( 5 );
+    resolvedItem.getText();
+    grid.addListener( SWT.SetData, new LoggingListener() );
+
+    grid.getAdapter( IGridAdapter.class ).clearResolvedItems();
+
+    assertEquals( "resolved", resolvedItem.getText() );
+    assertEquals( 1, eventLog.size() );
+    assertSame( resolvedItem, eventLog.get( 0 ).item );
+  }
+
+  public void testClearResolvedItems_KeepsCellToolTipsEnabled() {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    grid.setItemCount( 10 );
+    grid.getItem( 0 ).setToolTipText( 0, "foo" );
+
+    grid.getAdapter( IGridAdapter.class ).clearResolvedItems();
+
+    assertEquals( Boolean.TRUE, grid.getData( ICellToolTipProvider.ENABLE_CELL_TOOLTIP ) );
+  }
+
+  public void testTraceListener_InvalidValue() {
+    try {
+      grid.setData( Grid.TRACE_LISTENER, "foo" );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testTraceListener_TracesPackItems() {
+    createGridColumns( grid, 2, SWT.NONE );
+    GridItem[] items = createGridItems( grid, 3, 0 );
+    TraceLog traceLog = new TraceLog();
+    grid.setData( Grid.TRACE_LISTENER, traceLog );
+
+    items[ 0 ].pack();
+    items[ 1 ].pack();
+    doFakeRedraw();
+
+    GridTraceEvent event = traceLog.get( GridTraceEvent.PACK_ITEMS );
+    assertSame( grid, event.getGrid() );
+    assertEquals( 2, event.getRowCount() );
+    assertEquals( 2, event.getColumnCount() );
+    assertTrue( event.getDurationNanos() >= 0 );
+  }
+
+  public void testTraceListener_TracesColumnPack() {
+    GridColumn[] columns = createGridColumns( grid, 2, SWT.NONE );
+    createGridItems( grid, 3, 1 );
+    TraceLog traceLog = new TraceLog();
+    grid.setData( Grid.TRACE_LISTENER, traceLog );
+
+    columns[ 0 ].pack();
+
+    GridTraceEvent event = traceLog.get( GridTraceEvent.PACK_COLUMN );
+    assertEquals( 3, event.getRowCount() );
+    assertEquals( 1, event.getColumnCount() );
+  }
+
+  public void testTraceListener_TracesSetData() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    grid.setItemCount( 100 );
+    TraceLog traceLog = new TraceLog();
+    grid.setData( Grid.TRACE_LISTENER, traceLog );
+
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    assertEquals( 1, traceLog.get( GridTraceEvent.SET_DATA ).getRowCount() );
+  }
+
+  public void testTraceListener_TracesUpdateScrollBars() {
+    grid = new Grid( shell, SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    TraceLog traceLog = new TraceLog();
+    grid.setData( Grid.TRACE_LISTENER, traceLog );
+    createGridItems( grid, 20, 0 );
+
+    doFakeRedraw();
+
+    assertEquals( 20, traceLog.get( GridTraceEvent.UPDATE_SCROLL_BARS ).getRowCount() );
+  }
+
+  public void testTraceListener_NotNotifiedWhenDetached() {
+    GridItem[] items = createGridItems( grid, 3, 0 );
+    TraceLog traceLog = new TraceLog();
+    grid.setData( Grid.TRACE_LISTENER, traceLog );
+    grid.setData( Grid.TRACE_LISTENER, null );
+
+    items[ 0 ].pack();
+    doFakeRedraw();
+
+    assertTrue( traceLog.events.isEmpty() );
+  }
+
+  public void testDataSource_InvalidValue() {
+    try {
+      grid.setData( Grid.DATA_SOURCE, "foo" );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testDataSource_SetsItemCount() {
+    createGridItems( grid, 5, 0 );
+
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    assertEquals( 3, grid.getItemCount() );
+  }
+
+  public void testDataSource_ProvidesTexts() {
+    createGridColumns( grid, 2, SWT.NONE );
+
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    assertEquals( "cell 2.1", grid.getItem( 2 ).getText( 1 ) );
+  }
+
+  public void testDataSource_ProvidesEmptyTextForMissingCell() {
+    createGridColumns( grid, 3, SWT.NONE );
+
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    assertEquals( "", grid.getItem( 2 ).getText( 2 ) );
+  }
+
+  public void testDataSource_ItemTextOverridesSourceText() {
+    createGridColumns( grid, 2, SWT.NONE );
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    grid.getItem( 1 ).setText( 0, "foo" );
+
+    assertEquals( "foo", grid.getItem( 1 ).getText( 0 ) );
+    assertEquals( "cell 1.1", grid.getItem( 1 ).getText( 1 ) );
+    assertEquals( "cell 2.0", grid.getItem( 2 ).getText( 0 ) );
+  }
+
+  public void testDataSource_SharedBetweenGrids() {
+    GridDataSource dataSource = createDataSource( 3, 2 );
+    createGridColumns( grid, 2, SWT.NONE );
+    Grid otherGrid = new Grid( shell, SWT.NONE );
+    createGridColumns( otherGrid, 2, SWT.NONE );
+
+    grid.setData( Grid.DATA_SOURCE, dataSource );
+    otherGrid.setData( Grid.DATA_SOURCE, dataSource );
+    otherGrid.getItem( 0 ).setText( 0, "foo" );
+
+    assertEquals( "cell 0.0", grid.getItem( 0 ).getText( 0 ) );
+    assertEquals( "foo", otherGrid.getItem( 0 ).getText( 0 ) );
+  }
+
+  public void testDataSource_InsertedItemKeepsRows() {
+    createGridColumns( grid, 2, SWT.NONE );
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    GridItem inserted = new GridItem( grid, SWT.NONE, 0 );
+
+    assertEquals( "", inserted.getText( 0 ) );
+    assertEquals( "cell 0.0", grid.getItem( 1 ).getText( 0 ) );
+    assertEquals( "cell 2.1", grid.getItem( 3 ).getText( 1 ) );
+  }
+
+  public void testDataSource_RemovedItemKeepsRows() {
+    createGridColumns( grid, 2, SWT.NONE );
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    grid.remove( 0 );
+
+    assertEquals( "cell 1.0", grid.getItem( 0 ).getText( 0 ) );
+    assertEquals( "cell 2.1", grid.getItem( 1 ).getText( 1 ) );
+  }
+
+  public void testDataSource_Detach() {
+    createGridColumns( grid, 2, SWT.NONE );
+    grid.setData( Grid.DATA_SOURCE, createDataSource( 3, 2 ) );
+
+    grid.setData( Grid.DATA_SOURCE, null );
+
+    assertEquals( 3, grid.getItemCount() );
+    assertEquals( "", grid.getItem( 0 ).getText( 0 ) );
+  }
+
+  public void testArrayGridDataSource_CopiesRows() {
+    String[][] rows = new String[][] { { "foo" } };
+    GridDataSource dataSource = new ArrayGridDataSource( rows );
+
+    rows[ 0 ][ 0 ] = "bar";
+
+    assertEquals( "foo", dataSource.getText( 0, 0 ) );
+  }
+
+  public void testArrayGridDataSource_NullRow() {
+    try {
+      new ArrayGridDataSource( new String[][] { null } );
+      fail();
+    } catch( IllegalArgumentException expected ) {
+    }
+  }
+
+  public void testSlowGridOperationLogger_LogsSlowOperationWithStack() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    GridTraceListener logger = new SlowGridOperationLogger( 1, new PrintStream( output ) );
+
+    logger.operationTraced( new GridTraceEvent( grid, GridTraceEvent.RENDER, 2000000, 10, 2 ) );
+
+    String log = output.toString();
+    assertTrue( log.contains( "Slow grid operation: render took 2 ms, rows=10, columns=2" ) );
+    assertTrue( log.contains( "testSlowGridOperationLogger_LogsSlowOperationWithStack" ) );
+  }
+
+  public void testSlowGridOperationLogger_IgnoresFastOperation() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    GridTraceListener logger = new SlowGridOperationLogger( 5, new PrintStream( output ) );
+
+    logger.operationTraced( new GridTraceEvent( grid, GridTraceEvent.RENDER, 1000000, 10, 2 ) );
+
+    assertEquals( 0, output.size() );
+  }
+
   public void testGetAdapter_ICellToolTipAdapter() {
     assertNotNull( grid.getAdapter( ICellToolTipAdapter.class ) );
   }
@@ -2500,6 +3187,10 @@ public class Grid_Test extends TestCase {
   //////////////////
   // Helping methods
 
+  private List<Item> getRenderedItems() {
+    return Arrays.asList( grid.getAdapter( IItemHolderAdapter.class ).getItems() );
+  }
+
   private void doFakeRedraw() {
     grid.getAdapter( IGridAdapter.class ).doRedraw();
   }
@@ -2508,6 +3199,16 @@ public class Grid_Test extends TestCase {
     grid.layoutCache.cellPadding = padding;
   }
 
+  private static GridDataSource createDataSource( int rowCount, int columnCount ) {
+    String[][] rows = new String[ rowCount ][ columnCount ];
+    for( int i = 0; i < rowCount; i++ ) {
+      for( int j = 0; j < columnCount; j++ ) {
+        rows[ i ][ j ] = "cell " + i + "." + j;
+      }
+    }
+    return new ArrayGridDataSource( rows );
+  }
+
   private int getCheckBoxOffset( int index ) {
     return grid.getAdapter( IGridAdapter.class ).getCheckBoxOffset( index );
   }
@@ -2521,4 +3222,23 @@ public class Grid_Test extends TestCase {
       eventLog.add( event );
     }
   }
+
+  private static class TraceLog implements GridTraceListener {
+
+    final List<GridTraceEvent> events = new ArrayList<GridTraceEvent>();
+
+    public void operationTraced( GridTraceEvent event ) {
+      events.add( event );
+    }
+
+    GridTraceEvent get( String operation ) {
+      for( GridTraceEvent event : events ) {
+        if( event.getOperation().equals( operation ) ) {
+          return event;
+        }
+      }
+      fail( "Operation not traced: " + operation );
+      return null;
+    }
+  }
 }
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.eclipse.nebula.widgets.grid.internal.GridMetrics;
+
+
+public class JmxGridMetricsSink_Test extends TestCase {
+
+  private static final String TOTAL_NAME
+    = "org.eclipse.nebula.widgets.grid:type=GridMetrics,name=\"total\"";
+
+  private MBeanServer server;
+  private ObjectName totalName;
+
+  @Override
+  protected void setUp() throws Exception {
+    server = ManagementFactory.getPlatformMBeanServer();
+    totalName = new ObjectName( TOTAL_NAME );
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    resetInstance();
+  }
+
+  public void testGetInstance_RegistersTotal() throws Exception {
+    resetInstance();
+
+    JmxGridMetricsSink.getInstance();
+
+    assertTrue( server.isRegistered( totalName ) );
+  }
+
+  public void testGetInstance_ReplacesLeftOverTotal() throws Exception {
+    resetInstance();
+    GridMetrics leftOver = new GridMetrics();
+    leftOver.add( GridMetricsSink.RENDERED_ITEMS, 1 );
+    server.registerMBean( leftOver, totalName );
+
+    JmxGridMetricsSink.getInstance();
+
+    assertEquals( Long.valueOf( 0 ), server.getAttribute( totalName, "RenderedItems" ) );
+  }
+
+  /*
+   * Simulates a restart of the bundle, which creates a new instance while the
+   * MBeans of the old one are still registered.
+   */
+  private static void resetInstance() throws Exception {
+    Field field = JmxGridMetricsSink.class.getDeclaredField( "instance" );
+    field.setAccessible( true );
+    field.set( null, null );
+  }
+
+}
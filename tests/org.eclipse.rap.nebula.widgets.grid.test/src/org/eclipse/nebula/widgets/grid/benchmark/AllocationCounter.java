@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+
+/**
+ * Reports the number of bytes allocated by the current thread.
+ * <p>
+ * Uses <code>com.sun.management.ThreadMXBean#getThreadAllocatedBytes</code>,
+ * which is available on HotSpot based JVMs. The method is accessed
+ * reflectively, on other JVMs {@link #isSupported()} returns
+ * <code>false</code>.
+ * </p>
+ */
+public final class AllocationCounter {
+
+  private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+  private static final Method GET_ALLOCATED_BYTES = findMethod();
+
+  private AllocationCounter() {
+    // prevent instantiation
+  }
+
+  public static boolean isSupported() {
+    return GET_ALLOCATED_BYTES != null;
+  }
+
+  /**
+   * Returns the total number of bytes allocated by the current thread, or -1
+   * if this is not supported by the JVM.
+   */
+  public static long getAllocatedBytes() {
+    long result = -1;
+    if( GET_ALLOCATED_BYTES != null ) {
+      try {
+        Long id = Long.valueOf( Thread.currentThread().getId() );
+        result = ( ( Long )GET_ALLOCATED_BYTES.invoke( THREAD_BEAN, id ) ).longValue();
+      } catch( Exception exception ) {
+        throw new RuntimeException( "Failed to read allocated bytes", exception );
+      }
+    }
+    return result;
+  }
+
+  private static Method findMethod() {
+    Method result = null;
+    try {
+      Class<?> type = Class.forName( "com.sun.management.ThreadMXBean" );
+      if( type.isInstance( THREAD_BEAN ) ) {
+        result = type.getMethod( "getThreadAllocatedBytes", long.class );
+        result.invoke( THREAD_BEAN, Long.valueOf( Thread.currentThread().getId() ) );
+      }
+    } catch( Exception notSupported ) {
+      result = null;
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import org.eclipse.swt.widgets.Shell;
+
+
+/**
+ * A benchmark that is executed by a {@link BenchmarkRunner}.
+ * <p>
+ * For every row count, the runner creates a new UI session with a shell and
+ * calls {@link #setUp(Shell, int)}. Then it repeatedly calls
+ * {@link #beforeIteration()}, {@link #run()} and {@link #afterIteration()},
+ * first for the warmup and then, after {@link #beforeMeasurement()}, for the
+ * measured iterations. Only {@link #run()} is measured.
+ * </p>
+ */
+public abstract class Benchmark {
+
+  private final String name;
+
+  protected Benchmark( String name ) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Prepares the benchmark for the given row count. Not measured.
+   */
+  protected void setUp( Shell shell, int rowCount ) {
+  }
+
+  /**
+   * Called after the warmup, before the measured iterations.
+   */
+  protected void beforeMeasurement() {
+  }
+
+  /**
+   * Prepares a single iteration. Not measured.
+   */
+  protected void beforeIteration() {
+  }
+
+  /**
+   * Executes the measured operations.
+   *
+   * @return the number of operations executed
+   */
+  protected abstract int run();
+
+  /**
+   * Cleans up after a single iteration. Not measured.
+   */
+  protected void afterIteration() {
+  }
+
+  /**
+   * Adds the metrics that the benchmark collected during the measured
+   * iterations to the result.
+   */
+  protected void addMetrics( BenchmarkResult result ) {
+  }
+
+  /**
+   * Cleans up after all iterations for a row count. Not measured.
+   */
+  protected void tearDown() {
+  }
+
+}
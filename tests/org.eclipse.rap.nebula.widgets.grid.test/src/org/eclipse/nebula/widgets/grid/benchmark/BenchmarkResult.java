@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The result of a benchmark for one row count. Besides the time per operation,
+ * a result can hold additional metrics, e.g. bytes per operation.
+ */
+public class BenchmarkResult {
+
+  private final String name;
+  private final int rowCount;
+  private final int iterations;
+  private final long nanosPerOperation;
+  private final long minNanosPerOperation;
+  private final Map<String, Long> metrics;
+
+  public BenchmarkResult( String name,
+                          int rowCount,
+                          int iterations,
+                          long nanosPerOperation,
+                          long minNanosPerOperation )
+  {
+    this.name = name;
+    this.rowCount = rowCount;
+    this.iterations = iterations;
+    this.nanosPerOperation = nanosPerOperation;
+    this.minNanosPerOperation = minNanosPerOperation;
+    metrics = new LinkedHashMap<String, Long>();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  public long getNanosPerOperation() {
+    return nanosPerOperation;
+  }
+
+  public long getMinNanosPerOperation() {
+    return minNanosPerOperation;
+  }
+
+  public void setMetric( String key, long value ) {
+    metrics.put( key, Long.valueOf( value ) );
+  }
+
+  public Map<String, Long> getMetrics() {
+    return metrics;
+  }
+
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append( "{\"name\":\"" ).append( name ).append( '"' );
+    json.append( ",\"rowCount\":" ).append( rowCount );
+    json.append( ",\"iterations\":" ).append( iterations );
+    json.append( ",\"nsPerOp\":" ).append( nanosPerOperation );
+    json.append( ",\"minNsPerOp\":" ).append( minNanosPerOperation );
+    for( Map.Entry<String, Long> entry : metrics.entrySet() ) {
+      json.append( ",\"" ).append( entry.getKey() ).append( "\":" ).append( entry.getValue() );
+    }
+    json.append( '}' );
+    return json.toString();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    result.append( name ).append( " [" ).append( rowCount ).append( " rows]: " );
+    result.append( nanosPerOperation ).append( " ns/op" );
+    for( Map.Entry<String, Long> entry : metrics.entrySet() ) {
+      result.append( ", " ).append( entry.getKey() ).append( '=' ).append( entry.getValue() );
+    }
+    return result.toString();
+  }
+
+}
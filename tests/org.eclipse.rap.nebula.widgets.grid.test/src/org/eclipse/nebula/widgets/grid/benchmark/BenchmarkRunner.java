@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+
+/**
+ * Runs benchmarks against the RWT test fixture and collects their results.
+ * <p>
+ * The row counts can be overridden with the system property
+ * <code>benchmark.sizes</code> (a comma separated list), the number of
+ * iterations with <code>benchmark.warmup</code> and
+ * <code>benchmark.iterations</code>. The results are written as JSON to the
+ * file given by <code>benchmark.output</code>.
+ * </p>
+ * <p>
+ * If the JVM supports it, the bytes allocated by the measured operations are
+ * reported as <code>allocatedBytesPerOp</code>, see {@link AllocationCounter}.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+  public static final String SIZES_PROPERTY = "benchmark.sizes";
+  public static final String WARMUP_PROPERTY = "benchmark.warmup";
+  public static final String ITERATIONS_PROPERTY = "benchmark.iterations";
+  public static final String OUTPUT_PROPERTY = "benchmark.output";
+
+  private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+  private static final int DEFAULT_ITERATIONS = 10;
+
+  private final int[] rowCounts;
+  private final int warmupIterations;
+  private final int iterations;
+  private final List<BenchmarkResult> results;
+
+  public BenchmarkRunner( int[] defaultRowCounts ) {
+    this( getRowCounts( defaultRowCounts ),
+          Integer.getInteger( WARMUP_PROPERTY, DEFAULT_WARMUP_ITERATIONS ).intValue(),
+          Integer.getInteger( ITERATIONS_PROPERTY, DEFAULT_ITERATIONS ).intValue() );
+  }
+
+  public BenchmarkRunner( int[] rowCounts, int warmupIterations, int iterations ) {
+    this.rowCounts = rowCounts;
+    this.warmupIterations = warmupIterations;
+    this.iterations = iterations;
+    results = new ArrayList<BenchmarkResult>();
+  }
+
+  public List<BenchmarkResult> run( Benchmark benchmark ) {
+    List<BenchmarkResult> benchmarkResults = new ArrayList<BenchmarkResult>();
+    for( int i = 0; i < rowCounts.length; i++ ) {
+      BenchmarkResult result = run( benchmark, rowCounts[ i ] );
+      System.out.println( result );
+      benchmarkResults.add( result );
+    }
+    results.addAll( benchmarkResults );
+    return benchmarkResults;
+  }
+
+  public List<BenchmarkResult> getResults() {
+    return results;
+  }
+
+  public void writeResults( String defaultFileName ) throws IOException {
+    File file = new File( System.getProperty( OUTPUT_PROPERTY, defaultFileName ) );
+    Writer writer = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+    try {
+      writer.write( toJson() );
+    } finally {
+      writer.close();
+    }
+    System.out.println( "Results written to " + file.getAbsolutePath() );
+  }
+
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append( "{\"benchmarks\":[" );
+    for( int i = 0; i < results.size(); i++ ) {
+      if( i > 0 ) {
+        json.append( ',' );
+      }
+      json.append( "\n  " ).append( results.get( i ).toJson() );
+    }
+    json.append( "\n]}\n" );
+    return json.toString();
+  }
+
+  private BenchmarkResult run( Benchmark benchmark, int rowCount ) {
+    Fixture.setUp();
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    try {
+      Display display = new Display();
+      Shell shell = new Shell( display );
+      benchmark.setUp( shell, rowCount );
+      try {
+        for( int i = 0; i < warmupIterations; i++ ) {
+          runIteration( benchmark, null );
+        }
+        benchmark.beforeMeasurement();
+        long totalNanosPerOperation = 0;
+        long minNanosPerOperation = Long.MAX_VALUE;
+        long[] allocatedBytes = new long[ 1 ];
+        for( int i = 0; i < iterations; i++ ) {
+          long nanosPerOperation = runIteration( benchmark, allocatedBytes );
+          totalNanosPerOperation += nanosPerOperation;
+          minNanosPerOperation = Math.min( minNanosPerOperation, nanosPerOperation );
+        }
+        BenchmarkResult result
+          = new BenchmarkResult( benchmark.getName(),
+                                 rowCount,
+                                 iterations,
+                                 totalNanosPerOperation / Math.max( 1, iterations ),
+                                 minNanosPerOperation );
+        if( AllocationCounter.isSupported() ) {
+          long allocatedBytesPerOperation = allocatedBytes[ 0 ] / Math.max( 1, iterations );
+          result.setMetric( "allocatedBytesPerOp", allocatedBytesPerOperation );
+        }
+        benchmark.addMetrics( result );
+        return result;
+      } finally {
+        benchmark.tearDown();
+      }
+    } finally {
+      Fixture.tearDown();
+    }
+  }
+
+  static long runIteration( Benchmark benchmark, long[] allocatedBytes ) {
+    benchmark.beforeIteration();
+    try {
+      long allocatedBefore = AllocationCounter.getAllocatedBytes();
+      long start = System.nanoTime();
+      int operations = benchmark.run();
+      long duration = System.nanoTime() - start;
+      long allocatedAfter = AllocationCounter.getAllocatedBytes();
+      if( allocatedBytes != null ) {
+        allocatedBytes[ 0 ] += ( allocatedAfter - allocatedBefore ) / Math.max( 1, operations );
+      }
+      return duration / Math.max( 1, operations );
+    } finally {
+      benchmark.afterIteration();
+    }
+  }
+
+  private static int[] getRowCounts( int[] defaultRowCounts ) {
+    int[] result = defaultRowCounts;
+    String property = System.getProperty( SIZES_PROPERTY );
+    if( property != null && property.trim().length() > 0 ) {
+      String[] parts = property.split( "," );
+      result = new int[ parts.length ];
+      for( int i = 0; i < parts.length; i++ ) {
+        result[ i ] = Integer.parseInt( parts[ i ].trim() );
+      }
+    }
+    return result;
+  }
+
+}
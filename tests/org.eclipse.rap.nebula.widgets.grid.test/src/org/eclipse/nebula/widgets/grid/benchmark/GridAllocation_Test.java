@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import junit.framework.AssertionFailedError;
+import junit.framework.TestCase;
+
+import org.eclipse.nebula.widgets.grid.benchmark.GridLCABenchmarks.NoChangeBenchmark;
+import org.eclipse.nebula.widgets.grid.benchmark.GridLCABenchmarks.ReadSelectionBenchmark;
+import org.eclipse.nebula.widgets.grid.benchmark.GridLCABenchmarks.ScrollBenchmark;
+import org.eclipse.nebula.widgets.grid.benchmark.GridModelBenchmarks.SelectionBenchmark;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+
+/*
+ * Fails if a request or an operation on a grid allocates more than its budget.
+ * The budgets are calibrated in the same run on a grid with a tenth of the
+ * rows, the allocations of an unchanged request and of select all must grow at
+ * most linearly with the row count, and scrolling and reading a selection must
+ * not allocate more on a large grid than on a small one. Both allow a margin of
+ * 25 percent, the per request budgets additionally 4 KB for allocations that
+ * depend on the JIT, which is a tenth of a copy of the large item list.
+ * Absolute budgets, recorded from an actual run plus a margin, can be given
+ * with the system properties "benchmark.allocationBudget.<benchmark name>".
+ * If the system property "benchmark.recordAllocationBudgets" is set, the test
+ * prints the measured allocations plus the margin in this format. The tests
+ * pass without assertions on JVMs that do not report allocated bytes per
+ * thread. The protocol message is serialized after the measured section.
+ */
+public class GridAllocation_Test extends TestCase {
+
+  private static final String BUDGET_PROPERTY_PREFIX = "benchmark.allocationBudget.";
+  private static final String RECORD_PROPERTY = "benchmark.recordAllocationBudgets";
+  private static final int ROW_COUNT = 10000;
+  private static final int SMALL_ROW_COUNT = ROW_COUNT / 10;
+  private static final int MARGIN_PERCENT = 25;
+  private static final long TOLERANCE_BYTES = 4 * 1024;
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int ITERATIONS = 5;
+
+  private Shell shell;
+
+  @Override
+  protected void setUp() throws Exception {
+    Fixture.setUp();
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    Display display = new Display();
+    shell = new Shell( display );
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Fixture.tearDown();
+  }
+
+  public void testRenderUnchangedGrid() {
+    assertBudgetPerRow( new NoChangeBenchmark() );
+  }
+
+  public void testScroll() {
+    assertBudgetPerRequest( new ScrollBenchmark() );
+  }
+
+  public void testReadSelection() {
+    assertBudgetPerRequest( new ReadSelectionBenchmark() );
+  }
+
+  public void testSelectAll() {
+    assertBudgetPerRow( new SelectionBenchmark() );
+  }
+
+  public void testScroll_FailsWithCopyOfItems() {
+    if( AllocationCounter.isSupported() ) {
+      boolean failed = false;
+      try {
+        assertBudgetPerRequest( new CopyingScrollBenchmark() );
+      } catch( AssertionFailedError expected ) {
+        failed = true;
+      }
+      assertTrue( "copy of the item list not detected", failed );
+    }
+  }
+
+  private void assertBudgetPerRow( Benchmark benchmark ) {
+    if( AllocationCounter.isSupported() ) {
+      long smallAllocatedBytes = measureAllocatedBytes( benchmark, SMALL_ROW_COUNT );
+      long budget = addMargin( smallAllocatedBytes / SMALL_ROW_COUNT );
+
+      long allocatedBytes = measureAllocatedBytes( benchmark, ROW_COUNT ) / ROW_COUNT;
+
+      String message =   benchmark.getName() + " allocates " + allocatedBytes
+                       + " bytes per row with " + ROW_COUNT + " rows, budget is " + budget;
+      assertTrue( message, allocatedBytes <= budget );
+      assertRecordedBudget( benchmark, allocatedBytes );
+    }
+  }
+
+  private void assertBudgetPerRequest( Benchmark benchmark ) {
+    if( AllocationCounter.isSupported() ) {
+      long smallAllocatedBytes = measureAdditionalBytes( benchmark, SMALL_ROW_COUNT );
+      long budget = addMargin( Math.max( 0, smallAllocatedBytes ) ) + TOLERANCE_BYTES;
+
+      long allocatedBytes = measureAdditionalBytes( benchmark, ROW_COUNT );
+
+      String message =   benchmark.getName() + " allocates " + allocatedBytes
+                       + " bytes more than an unchanged request with " + ROW_COUNT
+                       + " rows, budget is " + budget;
+      assertTrue( message, allocatedBytes <= budget );
+      assertRecordedBudget( benchmark, allocatedBytes );
+    }
+  }
+
+  private void assertRecordedBudget( Benchmark benchmark, long allocatedBytes ) {
+    String property = BUDGET_PROPERTY_PREFIX + benchmark.getName();
+    if( System.getProperty( RECORD_PROPERTY ) != null ) {
+      System.out.println( "-D" + property + "=" + addMargin( allocatedBytes ) );
+    }
+    Long budget = Long.getLong( property );
+    if( budget != null ) {
+      String message =   benchmark.getName() + " allocates " + allocatedBytes
+                       + " bytes, recorded budget is " + budget;
+      assertTrue( message, allocatedBytes <= budget.longValue() );
+    }
+  }
+
+  private long measureAdditionalBytes( Benchmark benchmark, int rowCount ) {
+    long baseline = measureAllocatedBytes( new NoChangeBenchmark(), rowCount );
+    return measureAllocatedBytes( benchmark, rowCount ) - baseline;
+  }
+
+  private long measureAllocatedBytes( Benchmark benchmark, int rowCount ) {
+    benchmark.setUp( shell, rowCount );
+    try {
+      for( int i = 0; i < WARMUP_ITERATIONS; i++ ) {
+        BenchmarkRunner.runIteration( benchmark, null );
+      }
+      long[] allocatedBytes = new long[ 1 ];
+      for( int i = 0; i < ITERATIONS; i++ ) {
+        BenchmarkRunner.runIteration( benchmark, allocatedBytes );
+      }
+      return allocatedBytes[ 0 ] / ITERATIONS;
+    } finally {
+      benchmark.tearDown();
+    }
+  }
+
+  private static long addMargin( long allocatedBytes ) {
+    return allocatedBytes * ( 100 + MARGIN_PERCENT ) / 100;
+  }
+
+  private static class CopyingScrollBenchmark extends ScrollBenchmark {
+
+    @Override
+    void processAction() {
+      grid.getItems();
+    }
+  }
+
+}
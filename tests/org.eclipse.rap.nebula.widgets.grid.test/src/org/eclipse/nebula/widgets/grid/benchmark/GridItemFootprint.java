@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.io.IOException;
+
+import org.eclipse.nebula.widgets.grid.ArrayGridDataSource;
+import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.nebula.widgets.grid.GridColumn;
+import org.eclipse.nebula.widgets.grid.GridDataSource;
+import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.lifecycle.WidgetLifeCycleAdapter;
+import org.eclipse.rap.rwt.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+
+
+/**
+ * Measures the retained heap per <code>GridItem</code>.
+ * <p>
+ * The footprint of a row is the growth of the used heap after creating and
+ * rendering the rows, divided by the number of rows. It includes the item,
+ * its cell data, lists and adapters as well as the bookkeeping of RWT for the
+ * rendered widget. The texts, colors and fonts are shared by all rows, hence
+ * only the references to them are counted.
+ * </p>
+ * <p>
+ * Run with <code>main</code> to print the footprint for several column counts.
+ * The measurement relies on explicit garbage collections, use a large row count
+ * and a JVM without <code>-XX:+DisableExplicitGC</code>.
+ * </p>
+ */
+@SuppressWarnings("restriction")
+public class GridItemFootprint {
+
+  public static enum Scenario {
+    /** Rows with a text in every cell */
+    TEXTS,
+    /** Rows with a text, background, foreground and font in every cell */
+    STYLED,
+    /** Rows in a <code>SWT.CHECK</code> grid with a checked state in every cell */
+    CHECKS,
+    /** Rows with texts, arranged as root items with four children each */
+    TREE,
+    /** Rows whose texts are read from a data source that is shared by all sessions */
+    SHARED
+  }
+
+  private static final int[] COLUMN_COUNTS = new int[] { 1, 5, 20 };
+  private static final int ROW_COUNT = 20000;
+  private static final int TREE_CHILD_COUNT = 4;
+
+  public static void main( String[] args ) {
+    Scenario[] scenarios = Scenario.values();
+    for( int i = 0; i < scenarios.length; i++ ) {
+      for( int j = 0; j < COLUMN_COUNTS.length; j++ ) {
+        Fixture.setUp();
+        Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+        try {
+          Shell shell = new Shell( new Display() );
+          long bytesPerRow
+            = measureBytesPerRow( shell, scenarios[ i ], COLUMN_COUNTS[ j ], ROW_COUNT );
+          System.out.println( scenarios[ i ]
+                              + " columns=" + COLUMN_COUNTS[ j ]
+                              + " rows=" + ROW_COUNT
+                              + " bytesPerRow=" + bytesPerRow );
+        } finally {
+          Fixture.tearDown();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the retained heap per row of a grid with the given scenario, column
+   * count and row count. Requires a set up RWT test fixture in the
+   * <code>PROCESS_ACTION</code> phase.
+   */
+  public static long measureBytesPerRow( Shell shell,
+                                         Scenario scenario,
+                                         int columnCount,
+                                         int rowCount )
+  {
+    Grid grid = createGrid( shell, scenario, columnCount );
+    String[] texts = new String[ columnCount ];
+    for( int i = 0; i < columnCount; i++ ) {
+      texts[ i ] = "Cell " + i;
+    }
+    Color background = new Color( shell.getDisplay(), 255, 255, 0 );
+    Color foreground = new Color( shell.getDisplay(), 0, 0, 255 );
+    Font font = new Font( shell.getDisplay(), "Arial", 12, SWT.BOLD );
+    GridDataSource dataSource = null;
+    if( scenario == Scenario.SHARED ) {
+      dataSource = createDataSource( texts, rowCount );
+    }
+    render( grid );
+    long usedBefore = HeapMeasurement.getUsedHeap();
+    if( dataSource != null ) {
+      grid.setData( Grid.DATA_SOURCE, dataSource );
+    }
+    for( int i = grid.getItemCount(); i < rowCount; i++ ) {
+      GridItem item;
+      if( scenario == Scenario.TREE && i % ( TREE_CHILD_COUNT + 1 ) != 0 ) {
+        item = new GridItem( grid.getRootItem( grid.getRootItemCount() - 1 ), SWT.NONE );
+      } else {
+        item = new GridItem( grid, SWT.NONE );
+      }
+      for( int j = 0; j < columnCount; j++ ) {
+        item.setText( j, texts[ j ] );
+        if( scenario == Scenario.STYLED ) {
+          item.setBackground( j, background );
+          item.setForeground( j, foreground );
+          item.setFont( j, font );
+        } else if( scenario == Scenario.CHECKS ) {
+          item.setChecked( j, true );
+        }
+      }
+    }
+    render( grid );
+    long usedAfter = HeapMeasurement.getUsedHeap();
+    if( grid.getItemCount() != rowCount ) {
+      throw new IllegalStateException( "Unexpected item count: " + grid.getItemCount() );
+    }
+    grid.dispose();
+    return ( usedAfter - usedBefore ) / Math.max( 1, rowCount );
+  }
+
+  /*
+   * The data source is created before the heap is measured, since it is
+   * shared by the grids of all sessions.
+   */
+  private static GridDataSource createDataSource( String[] texts, int rowCount ) {
+    String[][] rows = new String[ rowCount ][];
+    for( int i = 0; i < rowCount; i++ ) {
+      rows[ i ] = texts;
+    }
+    return new ArrayGridDataSource( rows );
+  }
+
+  private static Grid createGrid( Shell shell, Scenario scenario, int columnCount ) {
+    int style = SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL;
+    if( scenario == Scenario.CHECKS ) {
+      style |= SWT.CHECK;
+    }
+    Grid grid = new Grid( shell, style );
+    grid.setSize( 800, 600 );
+    for( int i = 0; i < columnCount; i++ ) {
+      GridColumn column = new GridColumn( grid, SWT.NONE );
+      column.setWidth( 100 );
+    }
+    return grid;
+  }
+
+  /*
+   * Renders the grid and all its items in a separate request, like the life
+   * cycle does for items that are visible on the client. The protocol message
+   * is discarded with the next request.
+   */
+  private static void render( Grid grid ) {
+    Fixture.fakeNewRequest();
+    GridItem[] items = grid.getItems();
+    Fixture.fakePhase( PhaseId.RENDER );
+    try {
+      getLCA( grid ).render( grid );
+      for( int i = 0; i < items.length; i++ ) {
+        getLCA( items[ i ] ).render( items[ i ] );
+      }
+    } catch( IOException exception ) {
+      throw new RuntimeException( exception );
+    }
+    Fixture.markInitialized( grid );
+    for( int i = 0; i < items.length; i++ ) {
+      Fixture.markInitialized( items[ i ] );
+    }
+    Fixture.fakeNewRequest();
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+  }
+
+  private static WidgetLifeCycleAdapter getLCA( Widget widget ) {
+    return WidgetUtil.getLCA( widget );
+  }
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.nebula.widgets.grid.benchmark.GridItemFootprint.Scenario;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Shell;
+
+
+/*
+ * Fails if the retained heap per row of five columns exceeds its budget. The
+ * budgets are configured with the system properties
+ * "benchmark.rowBudget.<scenario>", e.g. "benchmark.rowBudget.styled=3072",
+ * and are meant to be recorded from an actual run plus a margin. If the system
+ * property "benchmark.recordRowBudgets" is set, the test prints the measured
+ * footprint plus a margin of 25 percent in this format. Scenarios without a
+ * configured budget are measured but not asserted. Each footprint is the
+ * median of three measurements. Rows that read their texts from a shared data
+ * source must not retain more than rows with their own texts, with a
+ * tolerance of 10 percent.
+ */
+public class GridItemFootprint_Test extends TestCase {
+
+  private static final String BUDGET_PROPERTY_PREFIX = "benchmark.rowBudget.";
+  private static final String RECORD_PROPERTY = "benchmark.recordRowBudgets";
+  private static final int COLUMN_COUNT = 5;
+  private static final int ROW_COUNT = 10000;
+  private static final int MEASUREMENTS = 3;
+  private static final int MARGIN_PERCENT = 25;
+  private static final int TOLERANCE_PERCENT = 10;
+
+  private Shell shell;
+
+  @Override
+  protected void setUp() throws Exception {
+    Fixture.setUp();
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    Display display = new Display();
+    shell = new Shell( display );
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    Fixture.tearDown();
+  }
+
+  public void testFootprint_Texts() {
+    assertFootprint( Scenario.TEXTS );
+  }
+
+  public void testFootprint_Styled() {
+    assertFootprint( Scenario.STYLED );
+  }
+
+  public void testFootprint_Checks() {
+    assertFootprint( Scenario.CHECKS );
+  }
+
+  public void testFootprint_Tree() {
+    assertFootprint( Scenario.TREE );
+  }
+
+  public void testFootprint_Shared() {
+    long bytesPerRow = assertFootprint( Scenario.SHARED );
+
+    long textsBytesPerRow = measureBytesPerRow( Scenario.TEXTS );
+    long limit = textsBytesPerRow * ( 100 + TOLERANCE_PERCENT ) / 100;
+    String message =   Scenario.SHARED + " uses " + bytesPerRow + " bytes per row, "
+                     + Scenario.TEXTS + " uses " + textsBytesPerRow;
+    assertTrue( message, bytesPerRow <= limit );
+  }
+
+  private long assertFootprint( Scenario scenario ) {
+    String property = BUDGET_PROPERTY_PREFIX + scenario.name().toLowerCase();
+
+    long bytesPerRow = measureBytesPerRow( scenario );
+
+    if( System.getProperty( RECORD_PROPERTY ) != null ) {
+      System.out.println( "-D" + property + "=" + bytesPerRow * ( 100 + MARGIN_PERCENT ) / 100 );
+    }
+    Long budget = Long.getLong( property );
+    if( budget != null ) {
+      String message = scenario + " uses " + bytesPerRow + " bytes per row, budget is " + budget;
+      assertTrue( message, bytesPerRow <= budget.longValue() );
+    }
+    return bytesPerRow;
+  }
+
+  private long measureBytesPerRow( Scenario scenario ) {
+    long[] results = new long[ MEASUREMENTS ];
+    for( int i = 0; i < MEASUREMENTS; i++ ) {
+      results[ i ]
+        = GridItemFootprint.measureBytesPerRow( shell, scenario, COLUMN_COUNT, ROW_COUNT );
+    }
+    Arrays.sort( results );
+    return results[ MEASUREMENTS / 2 ];
+  }
+
+}
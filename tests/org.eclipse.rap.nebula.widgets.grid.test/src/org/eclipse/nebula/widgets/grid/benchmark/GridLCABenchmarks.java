@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import static org.eclipse.rap.rwt.lifecycle.WidgetUtil.getId;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.nebula.widgets.grid.GridColumn;
+import org.eclipse.nebula.widgets.grid.GridColumnGroup;
+import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.rap.json.JsonArray;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.lifecycle.WidgetLifeCycleAdapter;
+import org.eclipse.rap.rwt.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.internal.widgets.IItemHolderAdapter;
+import org.eclipse.swt.widgets.Item;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+
+
+/**
+ * Benchmarks for the server side cost of a request to a grid.
+ * <p>
+ * Every measured operation simulates one request: the grid, its column groups,
+ * columns and rendered items are preserved, read and rendered by their LCAs,
+ * just like the life cycle does. The scenarios cover a request without
+ * changes, a changed cell, scrolling, select all, a selection sent by the
+ * client and a column resize. Besides the time per request, the results
+ * contain the average time of each phase (<code>preserveNs</code>,
+ * <code>readDataNs</code>, <code>renderNs</code>) and the size of the
+ * rendered protocol message in bytes (<code>protocolBytes</code>).
+ * </p>
+ */
+@SuppressWarnings("restriction")
+public class GridLCABenchmarks {
+
+  private static final int[] ROW_COUNTS = new int[] { 1000, 10000, 100000 };
+  private static final int COLUMN_COUNT = 5;
+
+  public static void main( String[] args ) throws IOException {
+    BenchmarkRunner runner = new BenchmarkRunner( ROW_COUNTS );
+    Benchmark[] benchmarks = createBenchmarks();
+    for( int i = 0; i < benchmarks.length; i++ ) {
+      runner.run( benchmarks[ i ] );
+    }
+    runner.writeResults( "grid-lca-benchmarks.json" );
+  }
+
+  public static Benchmark[] createBenchmarks() {
+    return new Benchmark[] {
+      new NoChangeBenchmark(),
+      new CellChangedBenchmark(),
+      new ScrollBenchmark(),
+      new SelectAllBenchmark(),
+      new ReadSelectionBenchmark(),
+      new ColumnResizeBenchmark()
+    };
+  }
+
+  static abstract class RequestBenchmark extends Benchmark {
+
+    Grid grid;
+    int rowCount;
+    private int requests;
+    private long preserveNanos;
+    private long readDataNanos;
+    private long renderNanos;
+    private int messages;
+    private long protocolBytes;
+
+    RequestBenchmark( String name ) {
+      super( name );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      this.rowCount = rowCount;
+      grid = new Grid( shell, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL );
+      grid.setSize( 800, 600 );
+      grid.setHeaderVisible( true );
+      GridColumnGroup group = new GridColumnGroup( grid, SWT.NONE );
+      group.setText( "Group" );
+      for( int i = 0; i < COLUMN_COUNT; i++ ) {
+        GridColumn column = i < 2
+                          ? new GridColumn( group, SWT.NONE )
+                          : new GridColumn( grid, SWT.NONE );
+        column.setText( "Column " + i );
+        column.setWidth( 100 );
+      }
+      for( int i = 0; i < rowCount; i++ ) {
+        GridItem item = new GridItem( grid, SWT.NONE );
+        for( int j = 0; j < COLUMN_COUNT; j++ ) {
+          item.setText( j, "Item " + i + "." + j );
+        }
+      }
+      executeRequest();
+    }
+
+    @Override
+    protected void beforeMeasurement() {
+      requests = 0;
+      preserveNanos = 0;
+      readDataNanos = 0;
+      renderNanos = 0;
+      messages = 0;
+      protocolBytes = 0;
+    }
+
+    @Override
+    protected int run() {
+      executeRequest();
+      return 1;
+    }
+
+    @Override
+    protected void afterIteration() {
+      // serializing the message is not part of the measured request
+      messages++;
+      protocolBytes += getProtocolBytes();
+    }
+
+    @Override
+    protected void addMetrics( BenchmarkResult result ) {
+      int count = Math.max( 1, requests );
+      result.setMetric( "preserveNs", preserveNanos / count );
+      result.setMetric( "readDataNs", readDataNanos / count );
+      result.setMetric( "renderNs", renderNanos / count );
+      result.setMetric( "protocolBytes", protocolBytes / Math.max( 1, messages ) );
+    }
+
+    @Override
+    protected void tearDown() {
+      grid.dispose();
+      grid = null;
+    }
+
+    /**
+     * Fakes the client properties of the request.
+     */
+    void prepareRequest() {
+    }
+
+    /**
+     * Changes the grid on the server side during the request.
+     */
+    void processAction() {
+    }
+
+    final void executeRequest() {
+      Fixture.fakeNewRequest();
+      prepareRequest();
+      Fixture.fakePhase( PhaseId.READ_DATA );
+      long start = System.nanoTime();
+      Widget[] widgets = getWidgets();
+      for( int i = 0; i < widgets.length; i++ ) {
+        getLCA( widgets[ i ] ).preserveValues( widgets[ i ] );
+      }
+      long preserved = System.nanoTime();
+      for( int i = 0; i < widgets.length; i++ ) {
+        getLCA( widgets[ i ] ).readData( widgets[ i ] );
+      }
+      long read = System.nanoTime();
+      Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+      processAction();
+      Fixture.fakePhase( PhaseId.RENDER );
+      long rendering = System.nanoTime();
+      widgets = getWidgets();
+      try {
+        for( int i = 0; i < widgets.length; i++ ) {
+          getLCA( widgets[ i ] ).render( widgets[ i ] );
+        }
+      } catch( IOException exception ) {
+        throw new RuntimeException( exception );
+      }
+      long rendered = System.nanoTime();
+      Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+      requests++;
+      preserveNanos += preserved - start;
+      readDataNanos += read - preserved;
+      renderNanos += rendered - rendering;
+    }
+
+    private Widget[] getWidgets() {
+      Item[] items = grid.getAdapter( IItemHolderAdapter.class ).getItems();
+      Widget[] result = new Widget[ items.length + 1 ];
+      result[ 0 ] = grid;
+      System.arraycopy( items, 0, result, 1, items.length );
+      return result;
+    }
+
+    private static WidgetLifeCycleAdapter getLCA( Widget widget ) {
+      return WidgetUtil.getLCA( widget );
+    }
+
+    private static long getProtocolBytes() {
+      try {
+        return Fixture.getProtocolMessage().toString().getBytes( "UTF-8" ).length;
+      } catch( UnsupportedEncodingException exception ) {
+        throw new RuntimeException( exception );
+      }
+    }
+  }
+
+  static class NoChangeBenchmark extends RequestBenchmark {
+
+    NoChangeBenchmark() {
+      super( "Request.noChange" );
+    }
+  }
+
+  static class CellChangedBenchmark extends RequestBenchmark {
+
+    private int counter;
+
+    CellChangedBenchmark() {
+      super( "Request.cellChanged" );
+    }
+
+    @Override
+    void processAction() {
+      GridItem item = grid.getItem( grid.getTopIndex() );
+      item.setText( 1, "Changed " + counter++ );
+    }
+  }
+
+  static class ScrollBenchmark extends RequestBenchmark {
+
+    private int topIndex;
+
+    ScrollBenchmark() {
+      super( "Request.scroll" );
+    }
+
+    @Override
+    void prepareRequest() {
+      topIndex = ( topIndex + 25 ) % Math.max( 1, rowCount - 25 );
+      Fixture.fakeSetProperty( getId( grid ), "topItemIndex", topIndex );
+    }
+  }
+
+  static class SelectAllBenchmark extends RequestBenchmark {
+
+    SelectAllBenchmark() {
+      super( "Request.selectAll" );
+    }
+
+    @Override
+    protected void beforeIteration() {
+      grid.deselectAll();
+      executeRequest();
+    }
+
+    @Override
+    void processAction() {
+      grid.selectAll();
+    }
+  }
+
+  static class ReadSelectionBenchmark extends RequestBenchmark {
+
+    private static final int SELECTION_COUNT = 100;
+
+    private JsonArray[] selections;
+    private int counter;
+
+    ReadSelectionBenchmark() {
+      super( "Request.readSelection" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      selections = new JsonArray[] {
+        createSelection( 0 ),
+        createSelection( SELECTION_COUNT )
+      };
+    }
+
+    @Override
+    void prepareRequest() {
+      Fixture.fakeSetProperty( getId( grid ), "selection", selections[ counter++ % 2 ] );
+    }
+
+    private JsonArray createSelection( int start ) {
+      JsonArray result = new JsonArray();
+      int end = Math.min( rowCount, start + SELECTION_COUNT );
+      for( int i = start; i < end; i++ ) {
+        result.add( getId( grid.getItem( i ) ) );
+      }
+      return result;
+    }
+  }
+
+  static class ColumnResizeBenchmark extends RequestBenchmark {
+
+    ColumnResizeBenchmark() {
+      super( "Request.columnResize" );
+    }
+
+    @Override
+    void processAction() {
+      GridColumn column = grid.getColumn( 0 );
+      column.setWidth( column.getWidth() == 100 ? 120 : 100 );
+    }
+  }
+
+}
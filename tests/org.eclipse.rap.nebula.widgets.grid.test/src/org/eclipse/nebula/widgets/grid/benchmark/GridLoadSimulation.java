@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import static org.eclipse.rap.rwt.lifecycle.WidgetUtil.getId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.nebula.widgets.grid.GridColumn;
+import org.eclipse.nebula.widgets.grid.GridColumnGroup;
+import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.rap.json.JsonArray;
+import org.eclipse.rap.json.JsonObject;
+import org.eclipse.rap.rwt.internal.protocol.ClientMessageConst;
+import org.eclipse.rap.rwt.internal.service.ContextProvider;
+import org.eclipse.rap.rwt.internal.service.ServiceContext;
+import org.eclipse.rap.rwt.lifecycle.PhaseId;
+import org.eclipse.rap.rwt.lifecycle.WidgetLifeCycleAdapter;
+import org.eclipse.rap.rwt.lifecycle.WidgetUtil;
+import org.eclipse.rap.rwt.testfixture.Fixture;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.internal.widgets.IItemHolderAdapter;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Item;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Widget;
+
+
+/**
+ * Simulates many UI sessions with several grids each, driven by scripted
+ * client messages.
+ * <p>
+ * Every session has its own HTTP session, UI session and display with a shell
+ * that holds grids like the one of the
+ * <code>GridSnippet</code>: a column group, columns and root items with child
+ * items. The sessions send requests in turn, each request scrolls, selects an
+ * item, expands or collapses an item or sorts by a column of a random grid.
+ * A request reads the client message and processes its events, then the
+ * widgets of the session are preserved and rendered.
+ * </p>
+ * <p>
+ * The results contain the mean request latency (<code>nsPerOp</code>), the
+ * 50th and 99th percentile latency (<code>p50Ns</code>, <code>p99Ns</code>),
+ * the throughput in requests per second and the retained heap per session.
+ * The number of sessions and grids can be set with the system properties
+ * <code>benchmark.sessions</code> and <code>benchmark.gridsPerSession</code>,
+ * see {@link BenchmarkRunner} for the other properties.
+ * </p>
+ * <p>
+ * The RWT test fixture binds the service context to the current thread. Hence
+ * the requests are executed one after the other, and the service context of
+ * the requesting session is swapped in for every request. Concurrency on a
+ * multi-core server is not modelled, the throughput is the one of a single
+ * request thread.
+ * </p>
+ */
+@SuppressWarnings("restriction")
+public class GridLoadSimulation extends Benchmark {
+
+  public static final String SESSIONS_PROPERTY = "benchmark.sessions";
+  public static final String GRIDS_PROPERTY = "benchmark.gridsPerSession";
+
+  private static final int[] ROW_COUNTS = new int[] { 1000, 10000 };
+  private static final int DEFAULT_SESSIONS = 50;
+  private static final int DEFAULT_GRIDS = 3;
+  private static final int COLUMN_COUNT = 5;
+  private static final int CHILD_ITEM_COUNT = 9;
+
+  private final int sessionCount;
+  private final int gridCount;
+  private final Random random;
+  private final List<Long> latencies;
+  private Shell[] sessions;
+  private ServiceContext[] contexts;
+  private long heapPerSession;
+
+  public static void main( String[] args ) throws IOException {
+    BenchmarkRunner runner = new BenchmarkRunner( ROW_COUNTS );
+    int sessionCount = Integer.getInteger( SESSIONS_PROPERTY, DEFAULT_SESSIONS ).intValue();
+    int gridCount = Integer.getInteger( GRIDS_PROPERTY, DEFAULT_GRIDS ).intValue();
+    runner.run( new GridLoadSimulation( sessionCount, gridCount ) );
+    runner.writeResults( "grid-load-simulation.json" );
+  }
+
+  public GridLoadSimulation( int sessionCount, int gridCount ) {
+    super( "LoadSimulation[" + sessionCount + "x" + gridCount + "]" );
+    this.sessionCount = sessionCount;
+    this.gridCount = gridCount;
+    random = new Random( 0 );
+    latencies = new ArrayList<Long>();
+  }
+
+  /*
+   * The shell of the runner is not used, every simulated session creates its
+   * own service context, UI session and display.
+   */
+  @Override
+  protected void setUp( Shell shell, int rowCount ) {
+    ServiceContext runnerContext = ContextProvider.getContext();
+    long usedBefore = HeapMeasurement.getUsedHeap();
+    sessions = new Shell[ sessionCount ];
+    contexts = new ServiceContext[ sessionCount ];
+    try {
+      for( int i = 0; i < sessionCount; i++ ) {
+        ContextProvider.releaseContextHolder();
+        Fixture.createServiceContext();
+        Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+        contexts[ i ] = ContextProvider.getContext();
+        sessions[ i ] = createSession( new Display(), rowCount );
+        executeRequest( i, false );
+      }
+    } finally {
+      activateContext( runnerContext );
+    }
+    heapPerSession = ( HeapMeasurement.getUsedHeap() - usedBefore ) / Math.max( 1, sessionCount );
+  }
+
+  @Override
+  protected void beforeMeasurement() {
+    latencies.clear();
+  }
+
+  /*
+   * One round, every session sends one request.
+   */
+  @Override
+  protected int run() {
+    ServiceContext runnerContext = ContextProvider.getContext();
+    try {
+      for( int i = 0; i < sessions.length; i++ ) {
+        long start = System.nanoTime();
+        executeRequest( i, true );
+        latencies.add( Long.valueOf( System.nanoTime() - start ) );
+      }
+    } finally {
+      activateContext( runnerContext );
+    }
+    return sessions.length;
+  }
+
+  @Override
+  protected void addMetrics( BenchmarkResult result ) {
+    long[] sorted = new long[ latencies.size() ];
+    long total = 0;
+    for( int i = 0; i < sorted.length; i++ ) {
+      sorted[ i ] = latencies.get( i ).longValue();
+      total += sorted[ i ];
+    }
+    Arrays.sort( sorted );
+    result.setMetric( "sessions", sessionCount );
+    result.setMetric( "gridsPerSession", gridCount );
+    result.setMetric( "p50Ns", getPercentile( sorted, 50 ) );
+    result.setMetric( "p99Ns", getPercentile( sorted, 99 ) );
+    result.setMetric( "requestsPerSecond", total == 0 ? 0 : sorted.length * 1000000000L / total );
+    result.setMetric( "heapPerSessionBytes", heapPerSession );
+  }
+
+  @Override
+  protected void tearDown() {
+    ServiceContext runnerContext = ContextProvider.getContext();
+    try {
+      for( int i = 0; i < sessions.length; i++ ) {
+        activateContext( contexts[ i ] );
+        sessions[ i ].getDisplay().dispose();
+      }
+    } finally {
+      activateContext( runnerContext );
+    }
+    sessions = null;
+    contexts = null;
+  }
+
+  private Shell createSession( Display display, int rowCount ) {
+    Shell result = new Shell( display );
+    for( int i = 0; i < gridCount; i++ ) {
+      createGrid( result, rowCount );
+    }
+    return result;
+  }
+
+  private static Grid createGrid( Shell shell, int rowCount ) {
+    Grid grid = new Grid( shell, SWT.MULTI | SWT.CHECK | SWT.V_SCROLL | SWT.H_SCROLL );
+    grid.setSize( 800, 600 );
+    grid.setHeaderVisible( true );
+    GridColumnGroup group = new GridColumnGroup( grid, SWT.TOGGLE );
+    group.setText( "Column Group" );
+    for( int i = 0; i < COLUMN_COUNT; i++ ) {
+      GridColumn column = i > 0 && i < 4
+                        ? new GridColumn( group, SWT.NONE )
+                        : new GridColumn( grid, SWT.NONE );
+      column.setText( "Column " + i );
+      column.setWidth( 150 );
+      column.addSelectionListener( new SortListener() );
+    }
+    int rootItemCount = Math.max( 1, rowCount / ( CHILD_ITEM_COUNT + 1 ) );
+    for( int i = 0; i < rootItemCount; i++ ) {
+      GridItem item = new GridItem( grid, SWT.NONE );
+      setTexts( item, "Item " + i );
+      for( int j = 0; j < CHILD_ITEM_COUNT; j++ ) {
+        GridItem subItem = new GridItem( item, SWT.NONE );
+        setTexts( subItem, "Subitem " + i + "." + j );
+      }
+    }
+    return grid;
+  }
+
+  private static void setTexts( GridItem item, String prefix ) {
+    for( int i = 0; i < COLUMN_COUNT; i++ ) {
+      item.setText( i, prefix + " (" + i + ")" );
+    }
+  }
+
+  /*
+   * Fakes a scripted client message for the given grid and returns the widget
+   * whose data has to be read.
+   */
+  private Widget fakeClientMessage( Grid grid ) {
+    Widget result = grid;
+    GridItem item = grid.getRootItem( random.nextInt( grid.getRootItemCount() ) );
+    switch( random.nextInt( 4 ) ) {
+      case 0:
+        int topIndex = random.nextInt( grid.getRootItemCount() );
+        Fixture.fakeSetProperty( getId( grid ), "topItemIndex", topIndex );
+        break;
+      case 1:
+        String itemId = getId( item );
+        Fixture.fakeSetProperty( getId( grid ), "selection", new JsonArray().add( itemId ) );
+        JsonObject parameters = new JsonObject().add( ClientMessageConst.EVENT_PARAM_ITEM, itemId );
+        Fixture.fakeNotifyOperation( getId( grid ),
+                                     ClientMessageConst.EVENT_SELECTION,
+                                     parameters );
+        break;
+      case 2:
+        Fixture.fakeSetProperty( getId( item ), "expanded", !item.isExpanded() );
+        result = item;
+        break;
+      default:
+        result = grid.getColumn( random.nextInt( grid.getColumnCount() ) );
+        Fixture.fakeNotifyOperation( getId( result ), ClientMessageConst.EVENT_SELECTION, null );
+        break;
+    }
+    return result;
+  }
+
+  /*
+   * Executes a request of the session with the given index, like the life
+   * cycle does for the widgets of one UI session. The service context of the
+   * session is swapped in, a new request keeps its HTTP session and hence its
+   * UI session and display.
+   */
+  private void executeRequest( int index, boolean fakeClientMessage ) {
+    Shell session = sessions[ index ];
+    activateContext( contexts[ index ] );
+    Fixture.fakeNewRequest();
+    Widget target = null;
+    if( fakeClientMessage ) {
+      Grid grid = ( Grid )session.getChildren()[ random.nextInt( gridCount ) ];
+      target = fakeClientMessage( grid );
+    }
+    Fixture.fakePhase( PhaseId.READ_DATA );
+    Widget[] widgets = getWidgets( session );
+    for( int i = 0; i < widgets.length; i++ ) {
+      getLCA( widgets[ i ] ).preserveValues( widgets[ i ] );
+    }
+    if( target != null ) {
+      Fixture.readDataAndProcessAction( target );
+    }
+    Fixture.fakePhase( PhaseId.RENDER );
+    widgets = getWidgets( session );
+    try {
+      for( int i = 0; i < widgets.length; i++ ) {
+        getLCA( widgets[ i ] ).render( widgets[ i ] );
+        Fixture.markInitialized( widgets[ i ] );
+      }
+    } catch( IOException exception ) {
+      throw new RuntimeException( exception );
+    }
+    Fixture.fakePhase( PhaseId.PROCESS_ACTION );
+    contexts[ index ] = ContextProvider.getContext();
+  }
+
+  private static void activateContext( ServiceContext context ) {
+    ContextProvider.releaseContextHolder();
+    ContextProvider.setContext( context );
+  }
+
+  private static Widget[] getWidgets( Shell session ) {
+    List<Widget> result = new ArrayList<Widget>();
+    Object[] grids = session.getChildren();
+    for( int i = 0; i < grids.length; i++ ) {
+      Grid grid = ( Grid )grids[ i ];
+      result.add( grid );
+      Item[] items = grid.getAdapter( IItemHolderAdapter.class ).getItems();
+      result.addAll( Arrays.asList( items ) );
+    }
+    return result.toArray( new Widget[ result.size() ] );
+  }
+
+  private static WidgetLifeCycleAdapter getLCA( Widget widget ) {
+    return WidgetUtil.getLCA( widget );
+  }
+
+  private static long getPercentile( long[] sorted, int percentile ) {
+    long result = 0;
+    if( sorted.length > 0 ) {
+      int index = ( int )Math.ceil( percentile / 100.0 * sorted.length ) - 1;
+      result = sorted[ Math.max( 0, Math.min( sorted.length - 1, index ) ) ];
+    }
+    return result;
+  }
+
+  private static final class SortListener extends SelectionAdapter {
+
+    @Override
+    public void widgetSelected( SelectionEvent event ) {
+      GridColumn column = ( GridColumn )event.widget;
+      Grid grid = column.getParent();
+      int direction = column.getSort() == SWT.UP ? SWT.DOWN : SWT.UP;
+      for( int i = 0; i < grid.getColumnCount(); i++ ) {
+        grid.getColumn( i ).setSort( SWT.NONE );
+      }
+      column.setSort( direction );
+      // reverse the order of the root items, like a viewer does after sorting
+      int rootItemCount = grid.getRootItemCount();
+      for( int i = 0; i < rootItemCount / 2; i++ ) {
+        GridItem first = grid.getRootItem( i );
+        GridItem second = grid.getRootItem( rootItemCount - 1 - i );
+        for( int j = 0; j < grid.getColumnCount(); j++ ) {
+          String text = first.getText( j );
+          first.setText( j, second.getText( j ) );
+          second.setText( j, text );
+        }
+      }
+    }
+  }
+
+}
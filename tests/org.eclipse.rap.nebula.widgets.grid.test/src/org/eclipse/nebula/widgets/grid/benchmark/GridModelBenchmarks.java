@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.io.IOException;
+
+import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.nebula.widgets.grid.GridColumn;
+import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Shell;
+
+
+/**
+ * Benchmarks for the operations of the Grid model, i.e. <code>Grid</code>,
+ * <code>GridItem</code> and <code>GridColumn</code>, at 1k, 100k and 1M rows.
+ * <p>
+ * Run with <code>main</code> and enough heap for the largest row count (about
+ * 1 GB for 1M rows). The results are written to
+ * <code>grid-model-benchmarks.json</code>, see {@link BenchmarkRunner} for the
+ * available system properties.
+ * </p>
+ */
+@SuppressWarnings("restriction")
+public class GridModelBenchmarks {
+
+  private static final int[] ROW_COUNTS = new int[] { 1000, 100000, 1000000 };
+  private static final int COLUMN_COUNT = 5;
+  private static final int OPERATIONS = 100;
+
+  public static void main( String[] args ) throws IOException {
+    BenchmarkRunner runner = new BenchmarkRunner( ROW_COUNTS );
+    Benchmark[] benchmarks = createBenchmarks();
+    for( int i = 0; i < benchmarks.length; i++ ) {
+      runner.run( benchmarks[ i ] );
+    }
+    runner.writeResults( "grid-model-benchmarks.json" );
+  }
+
+  public static Benchmark[] createBenchmarks() {
+    return new Benchmark[] {
+      new SetItemCountBenchmark(),
+      new AddItemsBenchmark(),
+      new InsertItemsBenchmark(),
+      new RemoveItemsBenchmark(),
+      new SelectionBenchmark(),
+      new ExpandCollapseBenchmark(),
+      new ScrollBenchmark(),
+      new PackBenchmark(),
+      new GetItemAtPointBenchmark()
+    };
+  }
+
+  static Grid createGrid( Shell shell, int style ) {
+    Grid grid = new Grid( shell, style | SWT.H_SCROLL | SWT.V_SCROLL );
+    grid.setSize( 800, 600 );
+    for( int i = 0; i < COLUMN_COUNT; i++ ) {
+      GridColumn column = new GridColumn( grid, SWT.NONE );
+      column.setText( "Column " + i );
+      column.setWidth( 100 );
+    }
+    return grid;
+  }
+
+  static void createItems( Grid grid, int count ) {
+    for( int i = 0; i < count; i++ ) {
+      GridItem item = new GridItem( grid, SWT.NONE );
+      for( int j = 0; j < COLUMN_COUNT; j++ ) {
+        item.setText( j, "Item " + i + "." + j );
+      }
+    }
+  }
+
+  static abstract class GridBenchmark extends Benchmark {
+
+    Shell shell;
+    Grid grid;
+    int rowCount;
+
+    GridBenchmark( String name ) {
+      super( name );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      this.shell = shell;
+      this.rowCount = rowCount;
+    }
+
+    @Override
+    protected void tearDown() {
+      if( grid != null ) {
+        grid.dispose();
+        grid = null;
+      }
+    }
+  }
+
+  static class SetItemCountBenchmark extends GridBenchmark {
+
+    SetItemCountBenchmark() {
+      super( "Grid.setItemCount" );
+    }
+
+    @Override
+    protected void beforeIteration() {
+      grid = createGrid( shell, SWT.VIRTUAL );
+    }
+
+    @Override
+    protected int run() {
+      grid.setItemCount( rowCount );
+      return 1;
+    }
+
+    @Override
+    protected void afterIteration() {
+      grid.dispose();
+      grid = null;
+    }
+  }
+
+  static class AddItemsBenchmark extends GridBenchmark {
+
+    AddItemsBenchmark() {
+      super( "GridItem.new" );
+    }
+
+    @Override
+    protected void beforeIteration() {
+      grid = createGrid( shell, SWT.NONE );
+    }
+
+    @Override
+    protected int run() {
+      for( int i = 0; i < rowCount; i++ ) {
+        new GridItem( grid, SWT.NONE );
+      }
+      return rowCount;
+    }
+
+    @Override
+    protected void afterIteration() {
+      grid.dispose();
+      grid = null;
+    }
+  }
+
+  static class InsertItemsBenchmark extends GridBenchmark {
+
+    InsertItemsBenchmark() {
+      super( "GridItem.new(index)" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      createItems( grid, rowCount );
+    }
+
+    @Override
+    protected int run() {
+      int index = rowCount / 2;
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        new GridItem( grid, SWT.NONE, index );
+      }
+      return OPERATIONS;
+    }
+
+    @Override
+    protected void afterIteration() {
+      grid.remove( rowCount / 2, rowCount / 2 + OPERATIONS - 1 );
+    }
+  }
+
+  static class RemoveItemsBenchmark extends GridBenchmark {
+
+    RemoveItemsBenchmark() {
+      super( "Grid.remove" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      createItems( grid, rowCount );
+    }
+
+    @Override
+    protected int run() {
+      int index = rowCount / 2;
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        grid.remove( index );
+      }
+      return OPERATIONS;
+    }
+
+    @Override
+    protected void afterIteration() {
+      int index = rowCount / 2;
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        new GridItem( grid, SWT.NONE, index );
+      }
+    }
+  }
+
+  static class SelectionBenchmark extends GridBenchmark {
+
+    SelectionBenchmark() {
+      super( "Grid.selectAll" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.MULTI );
+      createItems( grid, rowCount );
+    }
+
+    @Override
+    protected int run() {
+      grid.selectAll();
+      grid.getSelectionCount();
+      grid.deselectAll();
+      return 1;
+    }
+  }
+
+  static class ExpandCollapseBenchmark extends GridBenchmark {
+
+    private static final int CHILD_COUNT = 9;
+
+    ExpandCollapseBenchmark() {
+      super( "GridItem.setExpanded" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      int rootCount = rowCount / ( CHILD_COUNT + 1 );
+      for( int i = 0; i < rootCount; i++ ) {
+        GridItem rootItem = new GridItem( grid, SWT.NONE );
+        rootItem.setText( "Root " + i );
+        for( int j = 0; j < CHILD_COUNT; j++ ) {
+          GridItem childItem = new GridItem( rootItem, SWT.NONE );
+          childItem.setText( "Child " + i + "." + j );
+        }
+      }
+    }
+
+    @Override
+    protected int run() {
+      int rootCount = grid.getRootItemCount();
+      int step = Math.max( 1, rootCount / OPERATIONS );
+      int operations = 0;
+      for( int i = 0; i < rootCount && operations < 2 * OPERATIONS; i += step ) {
+        GridItem rootItem = grid.getRootItem( i );
+        rootItem.setExpanded( true );
+        rootItem.setExpanded( false );
+        operations += 2;
+      }
+      return operations;
+    }
+  }
+
+  static class ScrollBenchmark extends GridBenchmark {
+
+    ScrollBenchmark() {
+      super( "Grid.setTopIndex" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      createItems( grid, rowCount );
+    }
+
+    @Override
+    protected int run() {
+      int step = Math.max( 1, rowCount / OPERATIONS );
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        grid.setTopIndex( ( i * step ) % rowCount );
+        grid.getTopIndex();
+      }
+      return OPERATIONS;
+    }
+  }
+
+  static class PackBenchmark extends GridBenchmark {
+
+    PackBenchmark() {
+      super( "GridItem.pack" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      createItems( grid, rowCount );
+    }
+
+    @Override
+    protected int run() {
+      int step = Math.max( 1, rowCount / OPERATIONS );
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        GridItem item = grid.getItem( ( i * step ) % rowCount );
+        item.setText( 0, "Line 1\nLine 2" );
+        item.pack();
+      }
+      grid.getAdapter( IGridAdapter.class ).doRedraw();
+      return OPERATIONS;
+    }
+  }
+
+  static class GetItemAtPointBenchmark extends GridBenchmark {
+
+    GetItemAtPointBenchmark() {
+      super( "Grid.getItem(Point)" );
+    }
+
+    @Override
+    protected void setUp( Shell shell, int rowCount ) {
+      super.setUp( shell, rowCount );
+      grid = createGrid( shell, SWT.NONE );
+      createItems( grid, rowCount );
+      grid.setTopIndex( rowCount / 2 );
+    }
+
+    @Override
+    protected int run() {
+      int height = grid.getClientArea().height;
+      for( int i = 0; i < OPERATIONS; i++ ) {
+        grid.getItem( new Point( 10, ( i * 7 ) % height ) );
+      }
+      return OPERATIONS;
+    }
+  }
+
+}
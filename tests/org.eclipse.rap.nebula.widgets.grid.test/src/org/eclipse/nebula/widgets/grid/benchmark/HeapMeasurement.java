@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2013 EclipseSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    EclipseSource - initial API and implementation
+ ******************************************************************************/
+package org.eclipse.nebula.widgets.grid.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+
+/**
+ * Measures the used heap of the JVM.
+ * <p>
+ * The used heap is read from the <code>MemoryMXBean</code> after the garbage
+ * collector has settled. The measurement relies on explicit garbage
+ * collections, use a JVM without <code>-XX:+DisableExplicitGC</code>.
+ * </p>
+ */
+public final class HeapMeasurement {
+
+  private static final MemoryMXBean MEMORY_BEAN = ManagementFactory.getMemoryMXBean();
+  private static final int MAX_GC_RUNS = 20;
+  private static final long SETTLED_BYTES = 64 * 1024;
+
+  private HeapMeasurement() {
+    // prevent instantiation
+  }
+
+  /**
+   * Returns the used heap in bytes. Runs the garbage collector until two
+   * consecutive runs differ by at most 64 KB, but at most twenty times, and
+   * returns the smaller of the last two readings.
+   */
+  public static long getUsedHeap() {
+    long result = collectGarbage();
+    for( int i = 1; i < MAX_GC_RUNS; i++ ) {
+      long used = collectGarbage();
+      boolean settled = Math.abs( used - result ) <= SETTLED_BYTES;
+      result = Math.min( result, used );
+      if( settled ) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private static long collectGarbage() {
+    MEMORY_BEAN.gc();
+    System.runFinalization();
+    return MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+  }
+
+}
@@ -14,15 +14,27 @@ import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridColumns;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridItems;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.loadImage;
 import static org.eclipse.rap.rwt.lifecycle.WidgetUtil.getId;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.util.LinkedList;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.eclipse.nebula.widgets.grid.ArrayGridDataSource;
 import org.eclipse.nebula.widgets.grid.Grid;
+import org.eclipse.nebula.widgets.grid.GridColumn;
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.GridMetricsSink;
+import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
+import org.eclipse.nebula.widgets.grid.internal.IGridItemAdapter;
 import org.eclipse.rap.json.JsonArray;
 import org.eclipse.rap.json.JsonObject;
 import org.eclipse.rap.json.JsonValue;
@@ -255,6 +267,33 @@ public class GridItemLCA_Test extends TestCase {
     assertEquals( expected, message.findSetProperty( item, "texts" ) );
   }
 
+  public void testRenderTexts_FromDataSource() throws IOException {
+    createGridColumns( grid, 2, SWT.NONE );
+    String[][] rows = new String[][] { { "source 0.0", "source 0.1" } };
+    grid.setData( Grid.DATA_SOURCE, new ArrayGridDataSource( rows ) );
+
+    item.setText( 1, "item 0.1" );
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    JsonArray expected = JsonArray.readFrom( "[\"source 0.0\", \"item 0.1\"]" );
+    assertEquals( expected, message.findSetProperty( item, "texts" ) );
+  }
+
+  public void testRender_FromDataSourceCreatesNoCellData() throws Exception {
+    createGridColumns( grid, 3, SWT.NONE );
+    String[][] rows = new String[][] { { "source 0.0", "source 0.1", "source 0.2" } };
+    grid.setData( Grid.DATA_SOURCE, new ArrayGridDataSource( rows ) );
+
+    lca.preserveValues( item );
+    lca.renderChanges( item );
+
+    List<?> cellData = getCellData( item );
+    for( int i = 0; i < cellData.size(); i++ ) {
+      assertNull( cellData.get( i ) );
+    }
+  }
+
   public void testRenderTextsUnchanged() throws IOException {
     createGridColumns( grid, 2, SWT.NONE );
     Fixture.markInitialized( display );
@@ -269,6 +308,76 @@ public class GridItemLCA_Test extends TestCase {
     assertNull( message.findSetOperation( item, "texts" ) );
   }
 
+  public void testRenderTexts_AfterColumnAdded() throws IOException {
+    createGridColumns( grid, 1, SWT.NONE );
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( item );
+    item.setText( 0, "item 0.0" );
+
+    Fixture.preserveWidgets();
+    new GridColumn( grid, SWT.NONE );
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    JsonArray expected = JsonArray.readFrom( "[\"item 0.0\", \"\"]" );
+    assertEquals( expected, message.findSetProperty( item, "texts" ) );
+  }
+
+  public void testDoesNotResolveUncachedVirtualItem() throws IOException {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    item = new GridItem( grid, SWT.NONE );
+
+    lca.preserveValues( item );
+    lca.renderChanges( item );
+
+    assertFalse( item.getAdapter( IGridItemAdapter.class ).isCached() );
+  }
+
+  public void testRenderTexts_CachedVirtualItem() throws IOException {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    item = new GridItem( grid, SWT.NONE );
+    grid.addListener( SWT.SetData, new Listener() {
+      public void handleEvent( Event event ) {
+        ( ( GridItem )event.item ).setText( "foo" );
+      }
+    } );
+
+    item.getText();
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    JsonArray expected = JsonArray.readFrom( "[\"foo\"]" );
+    assertEquals( expected, message.findSetProperty( item, "texts" ) );
+  }
+
+  public void testRenderClear() throws IOException {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    item = new GridItem( grid, SWT.NONE );
+    item.getText();
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( item );
+
+    Fixture.preserveWidgets();
+    grid.clear( 0, false );
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    assertNotNull( message.findCallOperation( item, "clear" ) );
+  }
+
+  public void testRenderClear_NotCachedBefore() throws IOException {
+    grid = new Grid( shell, SWT.VIRTUAL );
+    item = new GridItem( grid, SWT.NONE );
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( item );
+
+    Fixture.preserveWidgets();
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    assertNull( message.findCallOperation( item, "clear" ) );
+  }
+
   public void testRenderInitialImages() throws IOException {
     createGridColumns( grid, 2, SWT.NONE );
 
@@ -427,6 +536,32 @@ public class GridItemLCA_Test extends TestCase {
     assertNull( message.findSetOperation( item, "cellBackgrounds" ) );
   }
 
+  public void testRenderCellBackgroundsReset() throws IOException {
+    createGridColumns( grid, 2, SWT.NONE );
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( item );
+    item.setBackground( 1, display.getSystemColor( SWT.COLOR_GREEN ) );
+
+    Fixture.preserveWidgets();
+    item.setBackground( 1, null );
+    lca.renderChanges( item );
+
+    Message message = Fixture.getProtocolMessage();
+    JsonValue actual = message.findSetProperty( item, "cellBackgrounds" );
+    assertEquals( JsonArray.readFrom( "[null, null]" ), actual );
+  }
+
+  public void testPreserveCellBackgrounds_SharesDefaultArray() {
+    createGridColumns( grid, 2, SWT.NONE );
+    GridItem otherItem = new GridItem( grid, SWT.NONE );
+
+    Fixture.preserveWidgets();
+
+    Object preserved = WidgetUtil.getAdapter( item ).getPreserved( "cellBackgrounds" );
+    Object otherPreserved = WidgetUtil.getAdapter( otherItem ).getPreserved( "cellBackgrounds" );
+    assertSame( preserved, otherPreserved );
+  }
+
   public void testRenderInitialCellForegrounds() throws IOException {
     createGridColumns( grid, 2, SWT.NONE );
 
@@ -679,6 +814,34 @@ public class GridItemLCA_Test extends TestCase {
     assertTrue( item.isExpanded() );
   }
 
+  public void testProcessTreeEvent_ExpandedWithLazyChildCount() {
+    grid = new Grid( shell, SWT.VIRTUAL | SWT.V_SCROLL );
+    grid.setSize( 200, 200 );
+    final GridItem lazyItem = new GridItem( grid, SWT.NONE );
+    final List<Event> setDataEvents = new LinkedList<Event>();
+    grid.addListener( SWT.SetData, new Listener() {
+      public void handleEvent( Event event ) {
+        setDataEvents.add( event );
+      }
+    } );
+    grid.addListener( SWT.Expand, new Listener() {
+      public void handleEvent( Event event ) {
+        // like a lazy content provider, the children are counted on expand
+        // while the item is still collapsed
+        lazyItem.setItemCount( 100000 );
+      }
+    } );
+
+    Fixture.fakeSetProperty( getId( lazyItem ), "expanded", true );
+    fakeTreeEvent( lazyItem, ClientMessageConst.EVENT_EXPAND );
+    Fixture.readDataAndProcessAction( display );
+    grid.getAdapter( IGridAdapter.class ).checkData();
+
+    assertTrue( lazyItem.isExpanded() );
+    assertEquals( 100000, lazyItem.getItemCount() );
+    assertTrue( setDataEvents.size() < 100 );
+  }
+
   public void testProcessTreeEvent_Collapsed() {
     List<Event> events = new LinkedList<Event>();
     grid.addListener( SWT.Collapse, new LoggingTreeListener( events ) );
@@ -737,12 +900,73 @@ public class GridItemLCA_Test extends TestCase {
     assertEquals( 0, message.getOperationCount() );
   }
 
+  public void testPreserveValues_ReportsMetrics() {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+
+    lca.preserveValues( item );
+
+    verify( metricsSink ).add( same( grid ), eq( GridMetricsSink.PRESERVE_NANOS ), anyLong() );
+  }
+
+  public void testRenderChanges_ReportsMetrics() throws IOException {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+    item.setText( "foo" );
+
+    lca.renderChanges( item );
+
+    verify( metricsSink ).add( same( grid ), eq( GridMetricsSink.RENDER_NANOS ), anyLong() );
+    verify( metricsSink ).add( grid, GridMetricsSink.RENDERED_ITEMS, 1 );
+    verify( metricsSink ).add( grid, GridMetricsSink.PROTOCOL_BYTES, 3 );
+  }
+
+  public void testRenderChanges_ReportsEncodedProtocolBytes() throws IOException {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+    item.setText( "f\u00fc\u20ac\ud83d\ude00" );
+
+    lca.renderChanges( item );
+
+    verify( metricsSink ).add( grid, GridMetricsSink.PROTOCOL_BYTES, 10 );
+  }
+
+  public void testRenderChanges_UnchangedItemNotReportedAsRendered() throws IOException {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+    item.setText( "foo" );
+    Fixture.markInitialized( display );
+    Fixture.markInitialized( item );
+
+    Fixture.preserveWidgets();
+    lca.renderChanges( item );
+
+    verify( metricsSink, never() ).add( grid, GridMetricsSink.RENDERED_ITEMS, 1 );
+  }
+
+  public void testRenderChanges_WithoutMetricsSink() throws IOException {
+    GridMetricsSink metricsSink = mock( GridMetricsSink.class );
+    grid.setData( Grid.METRICS_SINK, metricsSink );
+    grid.setData( Grid.METRICS_SINK, null );
+
+    lca.renderChanges( item );
+
+    verify( metricsSink, never() )
+      .add( same( grid ), eq( GridMetricsSink.RENDER_NANOS ), anyLong() );
+  }
+
   private static void fakeTreeEvent( GridItem item, String eventName ) {
     JsonObject parameters = new JsonObject()
       .add( ClientMessageConst.EVENT_PARAM_ITEM, getId( item ) );
     Fixture.fakeNotifyOperation( getId( item.getParent() ), eventName, parameters );
   }
 
+  private static List<?> getCellData( GridItem item ) throws Exception {
+    Field field = GridItem.class.getDeclaredField( "data" );
+    field.setAccessible( true );
+    return ( List<?> )field.get( item );
+  }
+
   //////////////////
   // Helping classes
 
@@ -14,6 +14,9 @@ import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridColumns;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.createGridItems;
 import static org.eclipse.nebula.widgets.grid.GridTestUtil.loadImage;
 import static org.eclipse.rap.rwt.lifecycle.WidgetUtil.getId;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -25,6 +28,8 @@ import junit.framework.TestCase;
 import org.eclipse.nebula.widgets.grid.Grid;
 import org.eclipse.nebula.widgets.grid.GridColumn;
 import org.eclipse.nebula.widgets.grid.GridItem;
+import org.eclipse.nebula.widgets.grid.GridTraceEvent;
+import org.eclipse.nebula.widgets.grid.GridTraceListener;
 import org.eclipse.nebula.widgets.grid.internal.IGridAdapter;
 import org.eclipse.nebula.widgets.grid.internal.gridkit.GridLCA.ItemMetrics;
 import org.eclipse.rap.json.JsonArray;
@@ -46,6 +51,7 @@ import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.ScrollBar;
 import org.eclipse.swt.widgets.Shell;
+import org.mockito.ArgumentCaptor;
 
 
 public class GridLCA_Test extends TestCase {
@@ -1140,6 +1146,23 @@ public class GridLCA_Test extends TestCase {
     return array;
   }
 
+  public void testRenderChanges_NotifiesTraceListener() throws IOException {
+    createGridColumns( grid, 2, SWT.NONE );
+    createGridItems( grid, 3, 0 );
+    GridTraceListener traceListener = mock( GridTraceListener.class );
+    grid.setData( Grid.TRACE_LISTENER, traceListener );
+
+    lca.renderChanges( grid );
+
+    ArgumentCaptor<GridTraceEvent> captor = ArgumentCaptor.forClass( GridTraceEvent.class );
+    verify( traceListener, atLeastOnce() ).operationTraced( captor.capture() );
+    GridTraceEvent event = captor.getValue();
+    assertEquals( GridTraceEvent.RENDER, event.getOperation() );
+    assertSame( grid, event.getGrid() );
+    assertEquals( 3, event.getRowCount() );
+    assertEquals( 2, event.getColumnCount() );
+  }
+
   //////////////////
   // Helping methods
 